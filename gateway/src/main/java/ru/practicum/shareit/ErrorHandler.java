@@ -1,6 +1,8 @@
 package ru.practicum.shareit;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -31,4 +33,11 @@ public class ErrorHandler {
     public ErrorResponse handleIsNotValidFieldException(final NotValidException e) {
         return new ErrorResponse(e.getMessage());
     }
+
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> handleTooManyRequestsException(final TooManyRequestsException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(new ErrorResponse(e.getMessage()));
+    }
 }
@@ -1,65 +1,79 @@
 package ru.practicum.shareit.booking;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.booking.dto.BookingRequestDto;
 import ru.practicum.shareit.booking.dto.BookingState;
+import ru.practicum.shareit.client.AsyncServerExchange;
 import ru.practicum.shareit.client.BaseClient;
 
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
 
     @Autowired
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                         ClientHttpRequestFactory requestFactory,
+                         ObjectProvider<AsyncServerExchange> asyncExchange) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                asyncExchange.getIfAvailable()
         );
     }
 
-    public ResponseEntity<Object> getBookings(int userId, BookingState state, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
-                "state", state.name(),
-                "from", from,
-                "size", size
-        );
-        return get("?state={state}&from={from}&size={size}", userId, parameters);
+    public CompletableFuture<ResponseEntity<Object>> getBookings(int userId, BookingState state, Integer from, Integer size, String cursor) {
+        return get("?" + pageQuery(cursor), userId, pageParameters(state, from, size, cursor));
     }
 
 
-    public ResponseEntity<Object> bookItem(int userId, BookingRequestDto requestDto) {
+    public CompletableFuture<ResponseEntity<Object>> bookItem(int userId, BookingRequestDto requestDto) {
         return post("", userId, requestDto);
     }
 
-    public ResponseEntity<Object> getBooking(int userId, Integer bookingId) {
+    public CompletableFuture<ResponseEntity<Object>> getBooking(int userId, Integer bookingId) {
         return get("/" + bookingId, userId);
     }
 
-    public ResponseEntity<Object> getBookingsForOwner(int userId, BookingState state, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
-                "state", state.name(),
-                "from", from,
-                "size", size
-        );
-        return get("/owner?state={state}&from={from}&size={size}", userId, parameters);
+    public CompletableFuture<ResponseEntity<Object>> getBookingsForOwner(int userId, BookingState state, Integer from, Integer size,
+                                                                         String cursor) {
+        return get("/owner?" + pageQuery(cursor), userId, pageParameters(state, from, size, cursor));
     }
 
-    public ResponseEntity<Object> setApprove(int userId, int bookingId, boolean approved) {
+    public CompletableFuture<ResponseEntity<Object>> setApprove(int userId, int bookingId, boolean approved) {
         return patch("/" + bookingId + "?approved=" + approved, userId);
     }
 
-    public ResponseEntity<Object> deleteBooking(int bookingId, int userId) {
+    public CompletableFuture<ResponseEntity<Object>> deleteBooking(int bookingId, int userId) {
         return delete("/" + bookingId, userId);
     }
 
+    private String pageQuery(String cursor) {
+        String query = "state={state}&from={from}&size={size}";
+        return cursor == null ? query : query + "&cursor={cursor}";
+    }
+
+    private Map<String, Object> pageParameters(BookingState state, Integer from, Integer size, String cursor) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("state", state.name());
+        parameters.put("from", from);
+        parameters.put("size", size);
+        if (cursor != null) {
+            parameters.put("cursor", cursor);
+        }
+        return parameters;
+    }
+
 }
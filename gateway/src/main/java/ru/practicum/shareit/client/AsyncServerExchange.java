@@ -0,0 +1,144 @@
+package ru.practicum.shareit.client;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Неблокирующий обмен с сервером для профиля async. Запрос уходит через java.net.http.HttpClient,
+ * поток Tomcat освобождается сразу после вызова контроллера, а ответ собирается в потоке клиента,
+ * когда сервер ответит. Ответ передается клиенту так же, как в блокирующем режиме BaseClient: статус,
+ * заголовки и тело байтами. Ошибки ввода-вывода превращаются в ResourceAccessException, как у RestTemplate.
+ * Одновременно к серверу уходит не больше shareit-server.http.max-connections запросов, как и в пуле
+ * блокирующего режима. Остальные ждут в очереди без занятого потока.
+ */
+@Component
+@Profile("async")
+public class AsyncServerExchange {
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final Duration readTimeout;
+    private final int maxConnections;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+
+    public AsyncServerExchange(ObjectMapper objectMapper,
+                               @Value("${shareit-server.http.max-connections:200}") int maxConnections,
+                               @Value("${shareit-server.http.connect-timeout:2s}") Duration connectTimeout,
+                               @Value("${shareit-server.http.read-timeout:30s}") Duration readTimeout,
+                               ExecutorService serverExchangeExecutor) {
+        this.objectMapper = objectMapper;
+        this.maxConnections = maxConnections;
+        this.readTimeout = readTimeout;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .executor(serverExchangeExecutor)
+                .build();
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> exchange(HttpMethod method, URI uri, HttpHeaders headers,
+                                                              @Nullable Object body) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(readTimeout)
+                .method(method.name(), bodyPublisher(body));
+        headers.forEach((name, values) -> values.forEach(value -> request.header(name, value)));
+
+        CompletableFuture<HttpResponse<byte[]>> sent = new CompletableFuture<>();
+        waiting.add(() -> {
+            try {
+                httpClient.sendAsync(request.build(), HttpResponse.BodyHandlers.ofByteArray())
+                        .whenComplete((response, e) -> {
+                            release();
+                            if (e != null) {
+                                sent.completeExceptionally(e);
+                            } else {
+                                sent.complete(response);
+                            }
+                        });
+            } catch (RuntimeException e) {
+                release();
+                sent.completeExceptionally(e);
+            }
+        });
+        drain();
+
+        return sent
+                .handle((response, e) -> {
+                    if (e != null) {
+                        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                        throw new CompletionException(new ResourceAccessException(
+                                String.format("Ошибка обмена с сервером %s %s: %s", method, uri, cause.getMessage()),
+                                cause instanceof IOException ? (IOException) cause : new IOException(cause)));
+                    }
+                    return toResponseEntity(response);
+                });
+    }
+
+    /**
+     * Запускает ожидающие запросы, пока есть свободные места. Место занимается до извлечения задачи из очереди,
+     * поэтому задача, добавленная во время проверки, не потеряется: ее заберет следующий проход.
+     */
+    private void drain() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= maxConnections) {
+                return;
+            }
+            if (!inFlight.compareAndSet(current, current + 1)) {
+                continue;
+            }
+            Runnable task = waiting.poll();
+            if (task == null) {
+                inFlight.decrementAndGet();
+                if (waiting.isEmpty()) {
+                    return;
+                }
+                continue;
+            }
+            task.run();
+        }
+    }
+
+    private void release() {
+        inFlight.decrementAndGet();
+        drain();
+    }
+
+    private HttpRequest.BodyPublisher bodyPublisher(@Nullable Object body) {
+        if (body == null) {
+            return HttpRequest.BodyPublishers.noBody();
+        }
+        try {
+            return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Не удалось сериализовать тело запроса", e);
+        }
+    }
+
+    private static ResponseEntity<Object> toResponseEntity(HttpResponse<byte[]> response) {
+        HttpHeaders headers = new HttpHeaders();
+        response.headers().map().forEach(headers::addAll);
+        return BaseClient.relay(response.statusCode(), headers, response.body());
+    }
+}
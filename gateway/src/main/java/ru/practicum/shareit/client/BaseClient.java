@@ -1,110 +1,190 @@
 package ru.practicum.shareit.client;
 
 import org.springframework.http.*;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
 import org.springframework.lang.Nullable;
-import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.DefaultResponseErrorHandler;
 import org.springframework.web.client.RestTemplate;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import static ru.practicum.shareit.contstant.Constant.USER_HEADER;
 
 public class BaseClient {
+    private static final Set<String> CONNECTION_HEADERS = Set.of("connection", "keep-alive", "transfer-encoding",
+            "content-length");
+
     protected final RestTemplate rest;
+    @Nullable
+    private final AsyncServerExchange asyncExchange;
 
     public BaseClient(RestTemplate rest) {
-        this.rest = rest;
+        this(rest, null);
     }
 
-    private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<Object> response) {
-        if (response.getStatusCode().is2xxSuccessful()) {
-            return response;
-        }
-
-        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode());
-
-        if (response.hasBody()) {
-            return responseBuilder.body(response.getBody());
+    /**
+     * Если asyncExchange задан (профиль async), запросы к серверу уходят без блокировки потока,
+     * иначе через RestTemplate, и возвращаемый future уже завершен.
+     */
+    public BaseClient(RestTemplate rest, @Nullable AsyncServerExchange asyncExchange) {
+        this.rest = rest;
+        this.asyncExchange = asyncExchange;
+        // ответы с ошибкой передаются клиенту как есть, поэтому строить для них исключение не нужно
+        this.rest.setErrorHandler(new DefaultResponseErrorHandler() {
+            @Override
+            public boolean hasError(ClientHttpResponse response) {
+                return false;
+            }
+        });
+        this.rest.getMessageConverters().add(0, new RelayBodyConverter());
+    }
+
+    /**
+     * Ответ сервера для клиента шлюза: статус, заголовки и тело байтами, без разбора JSON.
+     * Заголовки соединения и длины относятся к ответу сервера, для ответа шлюза их выставит Tomcat.
+     */
+    static ResponseEntity<Object> relay(int status, @Nullable HttpHeaders headers, @Nullable byte[] body) {
+        HttpHeaders relayed = new HttpHeaders();
+        if (headers != null) {
+            headers.forEach((name, values) -> {
+                if (!CONNECTION_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                    relayed.addAll(name, values);
+                }
+            });
         }
-
-        return responseBuilder.build();
+        return ResponseEntity.status(status)
+                .headers(relayed)
+                .body(body == null || body.length == 0 ? null : body);
     }
 
-    protected ResponseEntity<Object> get(String path) {
+    protected CompletableFuture<ResponseEntity<Object>> get(String path) {
         return get(path, null, null);
     }
 
-    protected ResponseEntity<Object> get(String path, int userId) {
+    protected CompletableFuture<ResponseEntity<Object>> get(String path, int userId) {
         return get(path, userId, null);
     }
 
-    protected ResponseEntity<Object> get(String path, Integer userId, @Nullable Map<String, Object> parameters) {
+    protected CompletableFuture<ResponseEntity<Object>> get(String path, Integer userId, @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, T body) {
+    /**
+     * GET, который склеивается с одинаковыми одновременными запросами: тот же путь, те же параметры
+     * и тот же пользователь получают один ответ сервера на всех. Включается для отдельных эндпоинтов.
+     */
+    protected CompletableFuture<ResponseEntity<Object>> getCoalesced(SingleFlight singleFlight, String endpoint,
+                                                                     String path, int userId,
+                                                                     @Nullable Map<String, Object> parameters) {
+        String key = expand(path, parameters) + "|" + userId;
+        return singleFlight.execute(endpoint, key, () -> get(path, userId, parameters));
+    }
+
+    protected <T> CompletableFuture<ResponseEntity<Object>> post(String path, T body) {
         return post(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, int userId, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> post(String path, int userId, T body) {
         return post(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, Integer userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> post(String path, Integer userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, int userId, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> put(String path, int userId, T body) {
         return put(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, int userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> put(String path, int userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PUT, path, userId, parameters, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, T body) {
         return patch(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, int userId) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, int userId) {
         return patch(path, userId, null, null);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, int userId, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, int userId, T body) {
         return patch(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Integer userId, @Nullable Map<String, Object> parameters, T body) {
+    protected <T> CompletableFuture<ResponseEntity<Object>> patch(String path, Integer userId, @Nullable Map<String, Object> parameters, T body) {
         return makeAndSendRequest(HttpMethod.PATCH, path, userId, parameters, body);
     }
 
-    protected ResponseEntity<Object> delete(String path) {
+    protected CompletableFuture<ResponseEntity<Object>> delete(String path) {
         return delete(path, null, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, int userId) {
+    protected CompletableFuture<ResponseEntity<Object>> delete(String path, int userId) {
         return delete(path, userId, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, Integer userId, @Nullable Map<String, Object> parameters) {
+    protected CompletableFuture<ResponseEntity<Object>> delete(String path, Integer userId, @Nullable Map<String, Object> parameters) {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
-    private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Integer userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
+    /**
+     * Передает тело ответа сервера клиенту по мере получения, не собирая его в памяти шлюза.
+     * Статус и тип содержимого берутся из ответа сервера.
+     */
+    protected void stream(String path, int userId, HttpServletResponse target) throws IOException {
+        HttpHeaders headers = defaultHeaders(userId);
+        headers.setAccept(List.of(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_JSON));
+        rest.execute(path, HttpMethod.GET, request -> request.getHeaders().putAll(headers), response -> {
+            copyHeaders(response.getRawStatusCode(), response.getHeaders(), target);
+            StreamUtils.copy(response.getBody(), target.getOutputStream());
+            return null;
+        });
+    }
+
+    private static void copyHeaders(int status, @Nullable HttpHeaders headers, HttpServletResponse target) {
+        target.setStatus(status);
+        if (headers != null && headers.getContentType() != null) {
+            target.setContentType(headers.getContentType().toString());
+        }
+    }
+
+    private <T> CompletableFuture<ResponseEntity<Object>> makeAndSendRequest(HttpMethod method, String path, Integer userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
+        if (asyncExchange == null) {
+            return CompletableFuture.completedFuture(exchange(method, path, userId, parameters, body));
+        }
+        return asyncExchange.exchange(method, expand(path, parameters), defaultHeaders(userId), body);
+    }
+
+    private URI expand(String path, @Nullable Map<String, Object> parameters) {
+        return parameters != null
+                ? rest.getUriTemplateHandler().expand(path, parameters)
+                : rest.getUriTemplateHandler().expand(path);
+    }
+
+    private <T> ResponseEntity<Object> exchange(HttpMethod method, String path, Integer userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
         HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
 
-        ResponseEntity<Object> shareitServerResponse;
-        try {
-            if (parameters != null) {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class, parameters);
-            } else {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class);
-            }
-        } catch (HttpStatusCodeException e) {
-            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
+        ResponseEntity<byte[]> shareitServerResponse;
+        if (parameters != null) {
+            shareitServerResponse = rest.exchange(path, method, requestEntity, byte[].class, parameters);
+        } else {
+            shareitServerResponse = rest.exchange(path, method, requestEntity, byte[].class);
         }
-        return prepareGatewayResponse(shareitServerResponse);
+        return relay(shareitServerResponse.getStatusCodeValue(), shareitServerResponse.getHeaders(),
+                shareitServerResponse.getBody());
     }
 
     private HttpHeaders defaultHeaders(Integer userId) {
@@ -116,4 +196,51 @@ public class BaseClient {
         }
         return headers;
     }
+
+    /**
+     * Читает тело ответа сервера в byte[] с одним копированием. Стандартный конвертер для ответов без
+     * Content-Length (сервер отдает JSON частями) наращивает буфер с 4 КБ удвоением и копирует его еще раз.
+     * Здесь тело без длины читается кусками: первый маленький, чтобы короткие ответы не занимали лишнего,
+     * остальные по 8 КБ, и в конце один раз склеивается.
+     */
+    private static class RelayBodyConverter extends ByteArrayHttpMessageConverter {
+        private static final int FIRST_CHUNK_SIZE = 1024;
+        private static final int CHUNK_SIZE = 8192;
+
+        @Override
+        public byte[] readInternal(Class<? extends byte[]> clazz, HttpInputMessage inputMessage) throws IOException {
+            long contentLength = inputMessage.getHeaders().getContentLength();
+            InputStream body = inputMessage.getBody();
+            if (contentLength >= 0 && contentLength <= Integer.MAX_VALUE) {
+                byte[] bytes = new byte[(int) contentLength];
+                int read = body.readNBytes(bytes, 0, bytes.length);
+                return read == bytes.length ? bytes : Arrays.copyOf(bytes, read);
+            }
+
+            List<byte[]> chunks = new ArrayList<>();
+            int total = 0;
+            int lastRead;
+            byte[] chunk = new byte[FIRST_CHUNK_SIZE];
+            while (true) {
+                lastRead = body.readNBytes(chunk, 0, chunk.length);
+                total += lastRead;
+                chunks.add(chunk);
+                if (lastRead < chunk.length) {
+                    break;
+                }
+                chunk = new byte[CHUNK_SIZE];
+            }
+            if (chunks.size() == 1) {
+                return Arrays.copyOf(chunks.get(0), total);
+            }
+            byte[] bytes = new byte[total];
+            int position = 0;
+            for (byte[] part : chunks) {
+                int length = Math.min(part.length, total - position);
+                System.arraycopy(part, 0, bytes, position, length);
+                position += length;
+            }
+            return bytes;
+        }
+    }
 }
@@ -0,0 +1,29 @@
+package ru.practicum.shareit.client;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ставит CompletedFutureReturnValueHandler перед стандартными обработчиками: обработчики, добавленные через
+ * WebMvcConfigurer, вызываются после них и до CompletableFuture не доходят.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class CompletedFutureConfig implements InitializingBean {
+    private final RequestMappingHandlerAdapter handlerAdapter;
+
+    @Override
+    public void afterPropertiesSet() {
+        List<HandlerMethodReturnValueHandler> defaults = handlerAdapter.getReturnValueHandlers();
+        List<HandlerMethodReturnValueHandler> handlers = new ArrayList<>(defaults.size() + 1);
+        handlers.add(new CompletedFutureReturnValueHandler(defaults));
+        handlers.addAll(defaults);
+        handlerAdapter.setReturnValueHandlers(handlers);
+    }
+}
@@ -0,0 +1,87 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandlerComposite;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Отдает ответ контроллера, вернувшего уже завершенный CompletableFuture, сразу в потоке запроса, как если бы
+ * контроллер вернул сам ResponseEntity. В блокирующем режиме клиенты возвращают именно такие future, а стандартный
+ * обработчик запускал для них асинхронную обработку: запрос второй раз проходил DispatcherServlet и перехватчики.
+ * Незавершенные future (профиль async, склеенные SingleFlight запросы) обрабатываются стандартными обработчиками.
+ * Ошибка завершенного future выбрасывается как есть и попадает в ErrorHandler.
+ */
+public class CompletedFutureReturnValueHandler implements HandlerMethodReturnValueHandler {
+    private final HandlerMethodReturnValueHandlerComposite handlers = new HandlerMethodReturnValueHandlerComposite();
+
+    public CompletedFutureReturnValueHandler(List<HandlerMethodReturnValueHandler> handlers) {
+        this.handlers.addHandlers(handlers);
+    }
+
+    @Override
+    public boolean supportsReturnType(MethodParameter returnType) {
+        return CompletableFuture.class.isAssignableFrom(returnType.getParameterType())
+                && ResponseEntity.class.isAssignableFrom(
+                ResolvableType.forMethodParameter(returnType).getGeneric(0).toClass());
+    }
+
+    @Override
+    public void handleReturnValue(@Nullable Object returnValue, MethodParameter returnType,
+                                  ModelAndViewContainer mavContainer, NativeWebRequest webRequest) throws Exception {
+        CompletableFuture<?> future = (CompletableFuture<?>) returnValue;
+        if (future == null || !future.isDone()) {
+            handlers.handleReturnValue(returnValue, returnType, mavContainer, webRequest);
+            return;
+        }
+        Object result;
+        try {
+            result = future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+        handlers.handleReturnValue(result, new ResultMethodParameter(returnType), mavContainer, webRequest);
+    }
+
+    /**
+     * Тип возвращаемого значения метода без CompletableFuture: по нему стандартные обработчики выбирают
+     * обработку ResponseEntity.
+     */
+    private static class ResultMethodParameter extends MethodParameter {
+        private final ResolvableType resultType;
+
+        private ResultMethodParameter(MethodParameter returnType) {
+            super(returnType);
+            this.resultType = ResolvableType.forMethodParameter(returnType).getGeneric(0);
+        }
+
+        private ResultMethodParameter(ResultMethodParameter original) {
+            super(original);
+            this.resultType = original.resultType;
+        }
+
+        @Override
+        public Class<?> getParameterType() {
+            return resultType.toClass();
+        }
+
+        @Override
+        public Type getGenericParameterType() {
+            return resultType.getType();
+        }
+
+        @Override
+        public ResultMethodParameter clone() {
+            return new ResultMethodParameter(this);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Общий пул соединений к серверу для всех клиентов шлюза. По умолчанию HttpClient держит только
+ * 2 соединения на маршрут, а все клиенты ходят на один хост, поэтому под нагрузкой запросы стояли
+ * в очереди за соединением. Размер пула, таймауты и время жизни простаивающих соединений задаются
+ * свойствами shareit-server.http.*. Занятость пула публикуется метриками httpcomponents.httpclient.pool.*,
+ * время ожидания соединения — таймером httpcomponents.httpclient.pool.wait.
+ */
+@Configuration
+public class HttpClientConfig {
+    private static final String POOL_NAME = "shareit-server";
+
+    @Bean
+    public MeteredConnectionManager connectionManager(
+            @Value("${shareit-server.http.max-connections:200}") int maxConnections,
+            @Value("${shareit-server.http.validate-after-inactivity:2s}") Duration validateAfterInactivity) {
+        MeteredConnectionManager connectionManager = new MeteredConnectionManager();
+        // все клиенты ходят на один сервер, поэтому лимит на маршрут совпадает с общим
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        connectionManager.setValidateAfterInactivity((int) validateAfterInactivity.toMillis());
+        connectionManager.setDefaultSocketConfig(SocketConfig.custom()
+                .setSoKeepAlive(true)
+                .setTcpNoDelay(true)
+                .build());
+        return connectionManager;
+    }
+
+    @Bean
+    public CloseableHttpClient httpClient(
+            PoolingHttpClientConnectionManager connectionManager,
+            @Value("${shareit-server.http.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${shareit-server.http.read-timeout:30s}") Duration readTimeout,
+            @Value("${shareit-server.http.connection-request-timeout:2s}") Duration connectionRequestTimeout,
+            @Value("${shareit-server.http.keep-alive:60s}") Duration keepAlive,
+            @Value("${shareit-server.http.idle-timeout:30s}") Duration idleTimeout) {
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout((int) connectTimeout.toMillis())
+                        .setSocketTimeout((int) readTimeout.toMillis())
+                        .setConnectionRequestTimeout((int) connectionRequestTimeout.toMillis())
+                        .build())
+                .setKeepAliveStrategy(keepAliveStrategy(keepAlive))
+                .evictExpiredConnections()
+                .evictIdleConnections(idleTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Потоки, в которых AsyncServerExchange разбирает ответы сервера. По умолчанию HttpClient берет кэширующий пул,
+     * который под нагрузкой растет до сотен потоков. Пул останавливается вместе с контекстом.
+     */
+    @Bean(destroyMethod = "shutdown")
+    @Profile("async")
+    public ExecutorService serverExchangeExecutor() {
+        AtomicInteger threads = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()), runnable -> {
+            Thread thread = new Thread(runnable, "server-exchange-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Bean
+    public ClientHttpRequestFactory clientHttpRequestFactory(CloseableHttpClient httpClient) {
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
+
+    /**
+     * Берет время жизни соединения из заголовка Keep-Alive сервера, а если его нет, держит соединение
+     * не дольше keepAlive. Стандартная стратегия в этом случае держит соединение бесконечно.
+     */
+    private static ConnectionKeepAliveStrategy keepAliveStrategy(Duration keepAlive) {
+        return (response, context) -> {
+            long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAlive.toMillis()) : keepAlive.toMillis();
+        };
+    }
+
+    /**
+     * Пул, который публикует свои метрики и замеряет, сколько запрос ждал выдачи соединения.
+     * Сам является MeterBinder, чтобы не зависеть от MeterRegistry: реестр привязывает binder-ы при создании.
+     */
+    static class MeteredConnectionManager extends PoolingHttpClientConnectionManager implements MeterBinder {
+        private volatile Timer waitTimer;
+
+        @Override
+        public void bindTo(MeterRegistry registry) {
+            new PoolingHttpClientConnectionManagerMetricsBinder(this, POOL_NAME).bindTo(registry);
+            waitTimer = Timer.builder("httpcomponents.httpclient.pool.wait")
+                    .description("Время ожидания свободного соединения в пуле")
+                    .tag("httpclient", POOL_NAME)
+                    .register(registry);
+        }
+
+        @Override
+        public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+            ConnectionRequest request = super.requestConnection(route, state);
+            Timer timer = waitTimer;
+            if (timer == null) {
+                return request;
+            }
+            return new ConnectionRequest() {
+                @Override
+                public HttpClientConnection get(long timeout, TimeUnit timeUnit)
+                        throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                    long start = System.nanoTime();
+                    try {
+                        return request.get(timeout, timeUnit);
+                    } finally {
+                        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    }
+                }
+
+                @Override
+                public boolean cancel() {
+                    return request.cancel();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Склейка одинаковых одновременных запросов к серверу. Первый запрос с ключом уходит на сервер, остальные,
+ * пришедшие до его ответа, получают тот же future и тот же ответ. После ответа ключ удаляется,
+ * поэтому ответы не кэшируются: следующий запрос снова идет на сервер.
+ * Счетчик gateway.single-flight.requests с тегами endpoint и result (upstream или coalesced)
+ * показывает, какая доля запросов обошлась без обращения к серверу.
+ */
+@Component
+public class SingleFlight {
+    private final Map<String, CompletableFuture<ResponseEntity<Object>>> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public SingleFlight(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> execute(String endpoint, String key,
+                                                             Supplier<CompletableFuture<ResponseEntity<Object>>> call) {
+        CompletableFuture<ResponseEntity<Object>> flight = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<Object>> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            meterRegistry.counter("gateway.single-flight.requests", "endpoint", endpoint, "result", "coalesced")
+                    .increment();
+            return existing;
+        }
+        meterRegistry.counter("gateway.single-flight.requests", "endpoint", endpoint, "result", "upstream")
+                .increment();
+
+        try {
+            call.get().whenComplete((response, e) -> {
+                inFlight.remove(key, flight);
+                if (e != null) {
+                    flight.completeExceptionally(e);
+                } else {
+                    flight.complete(response);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+        }
+        return flight;
+    }
+}
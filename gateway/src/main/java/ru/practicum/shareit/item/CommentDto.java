@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 
 @Data
@@ -12,4 +14,11 @@ import javax.validation.constraints.NotBlank;
 public class CommentDto {
     @NotBlank
     private String text;
+
+    /**
+     * Оценка от 1 до 5, 0 или отсутствие поля - отзыв без оценки.
+     */
+    @Min(0)
+    @Max(5)
+    private Integer rating;
 }
@@ -1,34 +1,49 @@
 package ru.practicum.shareit.item;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import ru.practicum.shareit.client.AsyncServerExchange;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.SingleFlight;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class ItemClient extends BaseClient {
     private static final String API_PREFIX = "/items";
 
+    private final SingleFlight singleFlight;
+
     @Autowired
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                      ClientHttpRequestFactory requestFactory,
+                      ObjectProvider<AsyncServerExchange> asyncExchange,
+                      SingleFlight singleFlight) {
         super(builder
                 .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                .build()
+                .requestFactory(() -> requestFactory)
+                .build(),
+                asyncExchange.getIfAvailable()
         );
+        this.singleFlight = singleFlight;
     }
 
-    public ResponseEntity<Object> getItem(int userId, int itemId) {
-        return get("/" + itemId, userId);
+    public CompletableFuture<ResponseEntity<Object>> getItem(int userId, int itemId) {
+        return getCoalesced(singleFlight, "items.get", "/" + itemId, userId, null);
     }
 
-    public ResponseEntity<Object> getItems(int userId, int from, int size) {
+    public CompletableFuture<ResponseEntity<Object>> getItems(int userId, int from, int size) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
@@ -36,28 +51,56 @@ public class ItemClient extends BaseClient {
         return get("?from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> update(int userId, ItemDto item, int itemId) {
+    public void export(int userId, HttpServletResponse response) throws IOException {
+        stream("/export", userId, response);
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> addAll(int userId, List<ItemDto> items) {
+        return post("/bulk", userId, items);
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> update(int userId, ItemDto item, int itemId) {
         return patch("/" + itemId, userId, item);
     }
 
-    public ResponseEntity<Object> add(int userId, ItemDto item) {
+    public CompletableFuture<ResponseEntity<Object>> add(int userId, ItemDto item) {
         return post("", userId, item);
     }
 
-    public ResponseEntity<Object> delete(int userId, int itemId) {
+    public CompletableFuture<ResponseEntity<Object>> delete(int userId, int itemId) {
         return delete("/" + itemId, userId);
     }
 
-    public ResponseEntity<Object> search(int userId, int from, int size, String text) {
+    public CompletableFuture<ResponseEntity<Object>> search(int userId, int from, int size, String text, SearchSort sort) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size,
-                "text", text
+                "text", text,
+                "sort", sort.name()
+        );
+        return getCoalesced(singleFlight, "items.search", "/search?text={text}&from={from}&size={size}&sort={sort}",
+                userId, parameters);
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> suggest(int userId, String prefix, int size) {
+        Map<String, Object> parameters = Map.of(
+                "prefix", prefix,
+                "size", size
         );
-        return get("/search?text={text}&from={from}&size={size}", userId, parameters);
+        return get("/suggest?prefix={prefix}&size={size}", userId, parameters);
+    }
+
+    public CompletableFuture<ResponseEntity<Object>> getComments(int userId, int itemId, Integer cursor, int size) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("size", size);
+        if (cursor == null) {
+            return get("/" + itemId + "/comments?size={size}", userId, parameters);
+        }
+        parameters.put("cursor", cursor);
+        return get("/" + itemId + "/comments?size={size}&cursor={cursor}", userId, parameters);
     }
 
-    public ResponseEntity<Object> addComment(int userId, int itemId, CommentDto comment) {
+    public CompletableFuture<ResponseEntity<Object>> addComment(int userId, int itemId, CommentDto comment) {
         return post("/" + itemId + "/comment", userId, comment);
     }
 }
@@ -2,14 +2,20 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.NotValidException;
+import ru.practicum.shareit.ratelimit.RateLimited;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
 
 import static ru.practicum.shareit.contstant.Constant.*;
 
@@ -22,52 +28,85 @@ import static ru.practicum.shareit.contstant.Constant.*;
 public class ItemController {
 
     private final ItemClient client;
+    private final ItemImporter importer;
 
     @GetMapping(ITEM_ID_PATH)
-    public ResponseEntity<Object> getItemById(@PathVariable(ITEM_ID) Integer itemId,
-                                              @RequestHeader(USER_HEADER) Integer userId) {
+    public CompletableFuture<ResponseEntity<Object>> getItemById(@PathVariable(ITEM_ID) Integer itemId,
+                                                                 @RequestHeader(USER_HEADER) Integer userId) {
         return client.getItem(userId, itemId);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getItemsForUser(@RequestHeader(USER_HEADER) Integer userId,
-                                                  @PositiveOrZero @RequestParam(defaultValue = "0") int from,
-                                                  @Positive @RequestParam(defaultValue = "10") int size) {
+    public CompletableFuture<ResponseEntity<Object>> getItemsForUser(@RequestHeader(USER_HEADER) Integer userId,
+                                                                     @PositiveOrZero @RequestParam(defaultValue = "0") int from,
+                                                                     @Positive @RequestParam(defaultValue = "10") int size) {
         return client.getItems(userId, from, size);
     }
 
+    @GetMapping("/export")
+    public void exportItems(@RequestHeader(USER_HEADER) Integer userId,
+                            HttpServletResponse response) throws IOException {
+        client.export(userId, response);
+    }
+
     @PatchMapping(ITEM_ID_PATH)
-    public ResponseEntity<Object> updateItem(@PathVariable(ITEM_ID) Integer itemId,
-                                             @RequestBody ItemDto item,
-                                             @RequestHeader(USER_HEADER) Integer userId) {
+    public CompletableFuture<ResponseEntity<Object>> updateItem(@PathVariable(ITEM_ID) Integer itemId,
+                                                                @RequestBody ItemDto item,
+                                                                @RequestHeader(USER_HEADER) Integer userId) {
         checkValidItemForUpdate(item);
         return client.update(userId, item, itemId);
     }
 
     @PostMapping
-    public ResponseEntity<Object> addItem(@Valid @RequestBody ItemDto item,
-                                          @RequestHeader(USER_HEADER) Integer userId) {
+    public CompletableFuture<ResponseEntity<Object>> addItem(@Valid @RequestBody ItemDto item,
+                                                             @RequestHeader(USER_HEADER) Integer userId) {
         return client.add(userId, item);
     }
 
+    @PostMapping(path = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public CompletableFuture<ResponseEntity<Object>> importItems(@RequestHeader(USER_HEADER) Integer userId,
+                                                                 InputStream body) throws IOException {
+        return importer.importItems(userId, body);
+    }
+
     @DeleteMapping(ITEM_ID_PATH)
-    public ResponseEntity<Object> deleteItem(@PathVariable(ITEM_ID) Integer itemId,
-                                             @RequestHeader(USER_HEADER) Integer userId) {
+    public CompletableFuture<ResponseEntity<Object>> deleteItem(@PathVariable(ITEM_ID) Integer itemId,
+                                                                @RequestHeader(USER_HEADER) Integer userId) {
         return client.delete(userId, itemId);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<Object> search(@RequestParam("text") String text,
-                                         @RequestHeader(USER_HEADER) Integer userId,
-                                         @PositiveOrZero @RequestParam(defaultValue = "0") int from,
-                                         @Positive @RequestParam(defaultValue = "10") int size) {
-        return client.search(userId, from, size, text);
+    @RateLimited("items.search")
+    public CompletableFuture<ResponseEntity<Object>> search(@RequestParam("text") String text,
+                                                            @RequestHeader(USER_HEADER) Integer userId,
+                                                            @PositiveOrZero @RequestParam(defaultValue = "0") int from,
+                                                            @Positive @RequestParam(defaultValue = "10") int size,
+                                                            @RequestParam(name = "sort", defaultValue = "id") String sortParam) {
+        SearchSort sort = SearchSort.from(sortParam)
+                .orElseThrow(() -> new NotValidException("Unknown sort: " + sortParam));
+        return client.search(userId, from, size, text, sort);
+    }
+
+    @GetMapping("/suggest")
+    @RateLimited("items.suggest")
+    public CompletableFuture<ResponseEntity<Object>> suggest(@RequestParam("prefix") String prefix,
+                                                             @RequestHeader(USER_HEADER) Integer userId,
+                                                             @Positive @RequestParam(defaultValue = "10") int size) {
+        return client.suggest(userId, prefix, size);
+    }
+
+    @GetMapping("/{itemId}/comments")
+    public CompletableFuture<ResponseEntity<Object>> getComments(@PathVariable("itemId") Integer itemId,
+                                                                 @RequestHeader(USER_HEADER) Integer userId,
+                                                                 @Positive @RequestParam(required = false) Integer cursor,
+                                                                 @Positive @RequestParam(defaultValue = "10") int size) {
+        return client.getComments(userId, itemId, cursor, size);
     }
 
     @PostMapping("/{itemId}/comment")
-    public ResponseEntity<Object> addComment(@Valid @RequestBody CommentDto comment,
-                                             @RequestHeader(USER_HEADER) Integer userId,
-                                             @PathVariable("itemId") Integer itemId) {
+    public CompletableFuture<ResponseEntity<Object>> addComment(@Valid @RequestBody CommentDto comment,
+                                                                @RequestHeader(USER_HEADER) Integer userId,
+                                                                @PathVariable("itemId") Integer itemId) {
         return client.addComment(userId, itemId, comment);
     }
 
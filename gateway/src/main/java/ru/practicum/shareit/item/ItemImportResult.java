@@ -0,0 +1,18 @@
+package ru.practicum.shareit.item;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemImportResult {
+    private Integer row;
+    private Integer id;
+    private String error;
+
+    public static ItemImportResult failed(int row, String error) {
+        return new ItemImportResult(row, null, error);
+    }
+}
@@ -0,0 +1,161 @@
+package ru.practicum.shareit.item;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+/**
+ * Импорт вещей для POST /items/bulk. Тело — JSON-массив вещей или NDJSON (по объекту в строке). Оно читается
+ * потоковым парсером Jackson по одной вещи, каждая проверяется теми же ограничениями, что и в POST /items,
+ * а прошедшие проверку вещи уходят на сервер пачками по CHUNK_SIZE. Пачки уходят по очереди: пока сервер
+ * принимает одну, читается следующая, поэтому в памяти не больше двух пачек и короткие результаты по строкам.
+ * Поток запроса ждет сервер, только когда следующая пачка уже собрана, а ответ на последнюю пачку приходит
+ * без ожидания в этом потоке.
+ * Строка, которую не удалось привести к вещи, и пачка, которую сервер отклонил или не подтвердил, попадают
+ * в результат как ошибки по своим строкам, и импорт продолжается. Если не удается разобрать само тело,
+ * импорт останавливается: уже отправленные вещи остаются созданными, а для строки с ошибкой указана причина.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemImporter {
+    private static final int CHUNK_SIZE = 500;
+
+    private final ItemClient client;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    public CompletableFuture<ResponseEntity<Object>> importItems(int userId, InputStream body) throws IOException {
+        List<ItemImportResult> results = new ArrayList<>();
+        List<ItemDto> chunk = new ArrayList<>(CHUNK_SIZE);
+        List<Integer> chunkRows = new ArrayList<>(CHUNK_SIZE);
+        CompletableFuture<List<ItemImportResult>> sent = CompletableFuture.completedFuture(new ArrayList<>());
+        int row = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            JsonToken token = parser.nextToken();
+            boolean array = token == JsonToken.START_ARRAY;
+            if (array) {
+                token = parser.nextToken();
+            }
+            while (token != null && !(array && token == JsonToken.END_ARRAY)) {
+                JsonNode node = objectMapper.readTree(parser);
+                ItemDto item = null;
+                try {
+                    item = objectMapper.treeToValue(node, ItemDto.class);
+                } catch (JsonProcessingException e) {
+                    results.add(ItemImportResult.failed(row, "Строка не разобрана: " + e.getOriginalMessage()));
+                }
+                if (item != null) {
+                    Set<ConstraintViolation<ItemDto>> violations = validator.validate(item);
+                    if (violations.isEmpty()) {
+                        chunk.add(item);
+                        chunkRows.add(row);
+                    } else {
+                        results.add(ItemImportResult.failed(row, violations.stream()
+                                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                                .sorted()
+                                .collect(Collectors.joining("; "))));
+                    }
+                }
+                if (chunk.size() == CHUNK_SIZE) {
+                    sent.join();
+                    sent = sendAfter(sent, userId, chunk, chunkRows);
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                    chunkRows = new ArrayList<>(CHUNK_SIZE);
+                }
+                row++;
+                token = parser.nextToken();
+            }
+        } catch (JsonProcessingException e) {
+            log.info("Импорт вещей пользователя с id: {} остановлен на строке {}", userId, row);
+            results.add(ItemImportResult.failed(row, "Строка не разобрана, импорт остановлен: " + e.getOriginalMessage()));
+        }
+        if (!chunk.isEmpty()) {
+            sent = sendAfter(sent, userId, chunk, chunkRows);
+        }
+        return sent.thenApply(chunkResults -> {
+            results.addAll(chunkResults);
+            results.sort(Comparator.comparing(ItemImportResult::getRow));
+            return ResponseEntity.ok(results);
+        });
+    }
+
+    /**
+     * Отправляет пачку после ответа на предыдущую и добавляет ее результаты к уже полученным.
+     */
+    private CompletableFuture<List<ItemImportResult>> sendAfter(CompletableFuture<List<ItemImportResult>> previous,
+                                                                int userId, List<ItemDto> chunk,
+                                                                List<Integer> chunkRows) {
+        return previous.thenCompose(done -> send(userId, chunk, chunkRows).thenApply(chunkResults -> {
+            done.addAll(chunkResults);
+            return done;
+        }));
+    }
+
+    /**
+     * Отправляет пачку на сервер и переводит номера строк ответа в номера строк исходного тела.
+     * Если сервер отклонил пачку или ответ не получен, ошибка записывается для каждой строки пачки.
+     */
+    private CompletableFuture<List<ItemImportResult>> send(int userId, List<ItemDto> chunk, List<Integer> chunkRows) {
+        CompletableFuture<ResponseEntity<Object>> response;
+        try {
+            response = client.addAll(userId, chunk);
+        } catch (RuntimeException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+        return response.handle((chunkResponse, e) -> {
+            if (e != null) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                log.warn("Пачка импорта вещей пользователя с id: {} не подтверждена сервером", userId, cause);
+                return failed(chunkRows, "Сервер не подтвердил пачку, вещи могли быть созданы: " + cause.getMessage());
+            }
+            if (!chunkResponse.getStatusCode().is2xxSuccessful()) {
+                return failed(chunkRows, String.format("Сервер отклонил пачку: %d %s",
+                        chunkResponse.getStatusCodeValue(), bodyText(chunkResponse)));
+            }
+            try {
+                List<ItemImportResult> chunkResults = objectMapper.readValue((byte[]) chunkResponse.getBody(),
+                        new TypeReference<>() {
+                        });
+                for (ItemImportResult result : chunkResults) {
+                    result.setRow(chunkRows.get(result.getRow()));
+                }
+                return chunkResults;
+            } catch (IOException | RuntimeException parseException) {
+                log.warn("Ответ сервера на пачку импорта вещей пользователя с id: {} не разобран", userId,
+                        parseException);
+                return failed(chunkRows, "Ответ сервера на пачку не разобран, вещи могли быть созданы");
+            }
+        });
+    }
+
+    private static List<ItemImportResult> failed(List<Integer> chunkRows, String error) {
+        return chunkRows.stream()
+                .map(row -> ItemImportResult.failed(row, error))
+                .collect(Collectors.toList());
+    }
+
+    private static String bodyText(ResponseEntity<Object> response) {
+        return response.getBody() == null ? "" : new String((byte[]) response.getBody(), StandardCharsets.UTF_8);
+    }
+}
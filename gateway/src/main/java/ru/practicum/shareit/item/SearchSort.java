@@ -0,0 +1,16 @@
+package ru.practicum.shareit.item;
+
+import java.util.Optional;
+
+public enum SearchSort {
+    ID, RELEVANCE;
+
+    public static Optional<SearchSort> from(String stringSort) {
+        for (SearchSort sort : values()) {
+            if (sort.name().equalsIgnoreCase(stringSort)) {
+                return Optional.of(sort);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,63 @@
+package ru.practicum.shareit.ratelimit;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import ru.practicum.shareit.TooManyRequestsException;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.TimeUnit;
+
+import static ru.practicum.shareit.contstant.Constant.USER_HEADER;
+
+/**
+ * Проверяет бюджет пользователя перед вызовом методов контроллеров, помеченных @RateLimited.
+ * Запросы без заголовка пользователя или с нечисловым значением пропускаются: их отклонит сам контроллер.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RateLimitInterceptor implements HandlerInterceptor {
+    private final RateLimiter rateLimiter;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // незавершенный CompletableFuture (профиль async) отдается повторной ASYNC-диспетчеризацией,
+        // токен за нее уже списан
+        if (request.getDispatcherType() == DispatcherType.ASYNC || !(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        RateLimited rateLimited = ((HandlerMethod) handler).getMethodAnnotation(RateLimited.class);
+        if (rateLimited == null) {
+            return true;
+        }
+        Integer userId = parseUserId(request.getHeader(USER_HEADER));
+        if (userId == null) {
+            return true;
+        }
+
+        long waitNanos = rateLimiter.tryAcquire(rateLimited.value(), userId);
+        if (waitNanos > 0) {
+            long retryAfter = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+            log.debug("Пользователь {} превысил лимит запросов к {}", userId, rateLimited.value());
+            throw new TooManyRequestsException(String.format("Превышен лимит запросов к %s. Повторите через %d с",
+                    rateLimited.value(), retryAfter), retryAfter);
+        }
+        return true;
+    }
+
+    private static Integer parseUserId(String header) {
+        if (header == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(header.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
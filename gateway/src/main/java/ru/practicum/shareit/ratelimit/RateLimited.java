@@ -0,0 +1,16 @@
+package ru.practicum.shareit.ratelimit;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Включает ограничение частоты запросов пользователя для метода контроллера. Бюджет эндпоинта задается
+ * свойствами shareit.rate-limit.&lt;value&gt;.capacity и shareit.rate-limit.&lt;value&gt;.refill-per-second.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimited {
+    String value();
+}
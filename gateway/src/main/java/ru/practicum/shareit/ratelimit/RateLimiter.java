@@ -0,0 +1,116 @@
+package ru.practicum.shareit.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Ограничитель частоты запросов по пользователю: token bucket на каждого пользователя и эндпоинт.
+ * Корзина хранится одним AtomicLong по схеме GCRA: вместо числа токенов запоминается момент, когда
+ * корзина снова наполнится (tat). Запрос тратит один токен, сдвигая tat на интервал пополнения,
+ * и проходит, если после этого tat опережает текущее время не больше чем на емкость корзины.
+ * Проверка — одна операция CAS без блокировок, а разные пользователи не делят общих счетчиков.
+ * Корзины, которые простояли полными дольше idle-timeout, удаляются: новая корзина ведет себя так же.
+ */
+@Component
+public class RateLimiter {
+    private static final String PROPERTY_PREFIX = "shareit.rate-limit.";
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final long idleTimeoutNanos;
+    private final LongSupplier nanoTime;
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweep;
+
+    @Autowired
+    public RateLimiter(Environment environment,
+                       MeterRegistry meterRegistry,
+                       @Value("${shareit.rate-limit.idle-timeout:10m}") Duration idleTimeout) {
+        this(environment, meterRegistry, idleTimeout, System::nanoTime);
+    }
+
+    RateLimiter(Environment environment, MeterRegistry meterRegistry, Duration idleTimeout, LongSupplier nanoTime) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.nanoTime = nanoTime;
+        this.nextSweep = new AtomicLong(nanoTime.getAsLong());
+    }
+
+    /**
+     * Тратит токен пользователя на эндпоинте. Возвращает 0, если запрос можно выполнить,
+     * иначе через сколько наносекунд появится следующий токен.
+     */
+    public long tryAcquire(String endpointName, Integer userId) {
+        long now = nanoTime.getAsLong();
+        sweepIfDue(now);
+
+        Endpoint endpoint = endpoints.computeIfAbsent(endpointName, this::loadEndpoint);
+        AtomicLong bucket = endpoint.buckets.computeIfAbsent(userId, id -> new AtomicLong(now));
+        while (true) {
+            long tat = bucket.get();
+            long newTat = Math.max(tat, now) + endpoint.interval;
+            long wait = newTat - now - endpoint.burst;
+            if (wait > 0) {
+                endpoint.rejected.increment();
+                return wait;
+            }
+            if (bucket.compareAndSet(tat, newTat)) {
+                return 0;
+            }
+        }
+    }
+
+    int bucketCount() {
+        return endpoints.values().stream().mapToInt(endpoint -> endpoint.buckets.size()).sum();
+    }
+
+    private Endpoint loadEndpoint(String name) {
+        int capacity = environment.getProperty(PROPERTY_PREFIX + name + ".capacity", Integer.class,
+                environment.getProperty(PROPERTY_PREFIX + "default.capacity", Integer.class, 20));
+        double refillPerSecond = environment.getProperty(PROPERTY_PREFIX + name + ".refill-per-second", Double.class,
+                environment.getProperty(PROPERTY_PREFIX + "default.refill-per-second", Double.class, 10.0));
+        if (capacity < 1 || refillPerSecond <= 0) {
+            throw new IllegalStateException(String.format("Некорректный бюджет запросов для %s: capacity=%d, "
+                    + "refill-per-second=%s", name, capacity, refillPerSecond));
+        }
+        return new Endpoint((long) (TimeUnit.SECONDS.toNanos(1) / refillPerSecond), capacity,
+                meterRegistry.counter("gateway.rate-limit.rejected", "endpoint", name));
+    }
+
+    /**
+     * Раз в idle-timeout один из запросов проходит по корзинам и удаляет простаивающие.
+     */
+    private void sweepIfDue(long now) {
+        long due = nextSweep.get();
+        if (now - due < 0 || !nextSweep.compareAndSet(due, now + idleTimeoutNanos)) {
+            return;
+        }
+        endpoints.values().forEach(endpoint -> endpoint.buckets.entrySet()
+                .removeIf(entry -> now - entry.getValue().get() > idleTimeoutNanos));
+    }
+
+    private static class Endpoint {
+        private final long interval;
+        private final long burst;
+        private final Map<Integer, AtomicLong> buckets = new ConcurrentHashMap<>();
+        private final Counter rejected;
+
+        private Endpoint(long interval, int capacity, Counter rejected) {
+            this.interval = interval;
+            this.burst = interval * capacity;
+            this.rejected = rejected;
+        }
+    }
+}
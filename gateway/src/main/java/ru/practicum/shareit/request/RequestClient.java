@@ -1,43 +1,56 @@
 package ru.practicum.shareit.request;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import ru.practicum.shareit.client.AsyncServerExchange;
 import ru.practicum.shareit.client.BaseClient;
 
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class RequestClient extends BaseClient {
     private static final String API_PREFIX = "/requests";
 
     @Autowired
-    public RequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(builder.uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX)).requestFactory(HttpComponentsClientHttpRequestFactory::new).build());
+    public RequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                         ClientHttpRequestFactory requestFactory,
+                         ObjectProvider<AsyncServerExchange> asyncExchange) {
+        super(builder.uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX)).requestFactory(() -> requestFactory).build(),
+                asyncExchange.getIfAvailable());
     }
 
-    public ResponseEntity<Object> add(int userId, RequestDto request) {
+    public CompletableFuture<ResponseEntity<Object>> add(int userId, RequestDto request) {
         return post("", userId, request);
     }
 
-    public ResponseEntity<Object> getItemRequests(int userId) {
+    public CompletableFuture<ResponseEntity<Object>> getItemRequests(int userId) {
         return get("", userId);
     }
 
-    public ResponseEntity<Object> getItemRequestsPageable(int userId, int from, int size) {
-        Map<String, Object> parameters = Map.of("from", from, "size", size);
-        return get("/all?from={from}&size={size}", userId, parameters);
+    public CompletableFuture<ResponseEntity<Object>> getItemRequestsPageable(int userId, int from, int size, String cursor) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("from", from);
+        parameters.put("size", size);
+        if (cursor == null) {
+            return get("/all?from={from}&size={size}", userId, parameters);
+        }
+        parameters.put("cursor", cursor);
+        return get("/all?from={from}&size={size}&cursor={cursor}", userId, parameters);
     }
 
-    public ResponseEntity<Object> getItemRequest(int userId, int requestId) {
+    public CompletableFuture<ResponseEntity<Object>> getItemRequest(int userId, int requestId) {
         return get("/" + requestId, userId);
     }
 
-    public ResponseEntity<Object> delete(int userId, int requestId) {
+    public CompletableFuture<ResponseEntity<Object>> delete(int userId, int requestId) {
         return delete("/" + requestId, userId);
     }
 }
@@ -9,6 +9,7 @@ import org.springframework.web.bind.annotation.*;
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.util.concurrent.CompletableFuture;
 
 import static ru.practicum.shareit.contstant.Constant.*;
 
@@ -22,32 +23,33 @@ public class RequestController {
     private final RequestClient client;
 
     @PostMapping
-    public ResponseEntity<Object> addItemRequest(@Valid @RequestBody RequestDto itemRequest,
-                                                 @RequestHeader(USER_HEADER) Integer userId) {
+    public CompletableFuture<ResponseEntity<Object>> addItemRequest(@Valid @RequestBody RequestDto itemRequest,
+                                                                    @RequestHeader(USER_HEADER) Integer userId) {
         return client.add(userId, itemRequest);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getItemRequestsForUser(@RequestHeader(USER_HEADER) Integer userId) {
+    public CompletableFuture<ResponseEntity<Object>> getItemRequestsForUser(@RequestHeader(USER_HEADER) Integer userId) {
         return client.getItemRequests(userId);
     }
 
     @GetMapping("/all")
-    public ResponseEntity<Object> getItemRequestsPageable(@RequestHeader(USER_HEADER) Integer userId,
-                                                          @PositiveOrZero @RequestParam(defaultValue = "0") int from,
-                                                          @Positive @RequestParam(defaultValue = "10") int size) {
-        return client.getItemRequestsPageable(userId, from, size);
+    public CompletableFuture<ResponseEntity<Object>> getItemRequestsPageable(@RequestHeader(USER_HEADER) Integer userId,
+                                                                             @PositiveOrZero @RequestParam(defaultValue = "0") int from,
+                                                                             @Positive @RequestParam(defaultValue = "10") int size,
+                                                                             @RequestParam(required = false) String cursor) {
+        return client.getItemRequestsPageable(userId, from, size, cursor);
     }
 
     @GetMapping(REQUEST_ID_PATH)
-    public ResponseEntity<Object> getItemRequestById(@RequestHeader(USER_HEADER) Integer userId,
-                                                     @Positive @PathVariable(REQUEST_ID) Integer requestId) {
+    public CompletableFuture<ResponseEntity<Object>> getItemRequestById(@RequestHeader(USER_HEADER) Integer userId,
+                                                                        @Positive @PathVariable(REQUEST_ID) Integer requestId) {
         return client.getItemRequest(userId, requestId);
     }
 
     @DeleteMapping(REQUEST_ID_PATH)
-    public ResponseEntity<Object> deleteItemRequest(@Positive @PathVariable(REQUEST_ID) Integer requestId,
-                                                    @RequestHeader(USER_HEADER) Integer userId) {
+    public CompletableFuture<ResponseEntity<Object>> deleteItemRequest(@Positive @PathVariable(REQUEST_ID) Integer requestId,
+                                                                       @RequestHeader(USER_HEADER) Integer userId) {
         return client.delete(requestId, userId);
     }
 }
@@ -1,45 +1,52 @@
 package ru.practicum.shareit.user;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import ru.practicum.shareit.client.AsyncServerExchange;
 import ru.practicum.shareit.client.BaseClient;
 
+import java.util.concurrent.CompletableFuture;
+
 @Service
 public class UserClient extends BaseClient {
     private static final String API_PREFIX = "/users";
 
     @Autowired
-    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                      ClientHttpRequestFactory requestFactory,
+                      ObjectProvider<AsyncServerExchange> asyncExchange) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                asyncExchange.getIfAvailable()
         );
     }
 
-    public ResponseEntity<Object> add(UserDto user) {
+    public CompletableFuture<ResponseEntity<Object>> add(UserDto user) {
         return post("", user);
     }
 
-    public ResponseEntity<Object> update(int userId, UserDto user) {
+    public CompletableFuture<ResponseEntity<Object>> update(int userId, UserDto user) {
         return patch("/" + userId, user);
     }
 
-    public ResponseEntity<Object> getUser(int userId) {
+    public CompletableFuture<ResponseEntity<Object>> getUser(int userId) {
         return get("/" + userId);
     }
 
-    public ResponseEntity<Object> getUsers() {
+    public CompletableFuture<ResponseEntity<Object>> getUsers() {
         return get("");
     }
 
-    public ResponseEntity<Object> delete(int userId) {
+    public CompletableFuture<ResponseEntity<Object>> delete(int userId) {
         return delete("/" + userId);
     }
 }
@@ -9,6 +9,7 @@ import ru.practicum.shareit.NotValidException;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
+import java.util.concurrent.CompletableFuture;
 
 import static ru.practicum.shareit.contstant.Constant.USER_ID;
 import static ru.practicum.shareit.contstant.Constant.USER_ID_PATH;
@@ -24,29 +25,29 @@ public class UserController {
     private final UserClient client;
 
     @GetMapping(USER_ID_PATH)
-    public ResponseEntity<Object> getUserById(@Positive @PathVariable(USER_ID) Integer userId) {
+    public CompletableFuture<ResponseEntity<Object>> getUserById(@Positive @PathVariable(USER_ID) Integer userId) {
         return client.getUser(userId);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getUsers() {
+    public CompletableFuture<ResponseEntity<Object>> getUsers() {
         return client.getUsers();
     }
 
     @PostMapping
-    public ResponseEntity<Object> addUser(@Valid @RequestBody UserDto user) {
+    public CompletableFuture<ResponseEntity<Object>> addUser(@Valid @RequestBody UserDto user) {
         return client.add(user);
     }
 
     @PatchMapping(USER_ID_PATH)
-    public ResponseEntity<Object> updateUser(@RequestBody UserDto user,
-                                             @Positive @PathVariable(USER_ID) Integer userId) {
+    public CompletableFuture<ResponseEntity<Object>> updateUser(@RequestBody UserDto user,
+                                                                @Positive @PathVariable(USER_ID) Integer userId) {
         checkValidUserForUpdate(user);
         return client.update(userId, user);
     }
 
     @DeleteMapping(USER_ID_PATH)
-    public ResponseEntity<Object> deleteUser(@Positive @PathVariable(USER_ID) Integer userId) {
+    public CompletableFuture<ResponseEntity<Object>> deleteUser(@Positive @PathVariable(USER_ID) Integer userId) {
         return client.delete(userId);
     }
 
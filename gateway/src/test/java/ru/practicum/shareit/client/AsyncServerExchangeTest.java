@@ -0,0 +1,135 @@
+package ru.practicum.shareit.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.practicum.shareit.contstant.Constant.USER_HEADER;
+
+public class AsyncServerExchangeTest {
+    private static final byte[] ERROR_BODY = "{\"error\":\"Вещь не найдена\"}".getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private AsyncServerExchange exchange;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.start();
+        executor = Executors.newFixedThreadPool(2);
+        exchange = new AsyncServerExchange(new ObjectMapper(), 2, Duration.ofSeconds(2), Duration.ofSeconds(5),
+                executor);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void exchangeWhenServerAnswersWithErrorRelayStatusTypeAndBody() {
+        server.createContext("/items/1", http -> {
+            http.getResponseHeaders().set(HttpHeaders.CONTENT_TYPE, "application/problem+json");
+            http.getResponseHeaders().set(HttpHeaders.CONNECTION, "keep-alive");
+            http.getResponseHeaders().set("Keep-Alive", "timeout=60");
+            http.sendResponseHeaders(404, ERROR_BODY.length);
+            http.getResponseBody().write(ERROR_BODY);
+            http.close();
+        });
+
+        ResponseEntity<Object> response = exchange.exchange(HttpMethod.GET, uri("/items/1"), new HttpHeaders(), null)
+                .join();
+
+        assertEquals(404, response.getStatusCodeValue());
+        assertEquals(MediaType.APPLICATION_PROBLEM_JSON, response.getHeaders().getContentType());
+        assertArrayEquals(ERROR_BODY, (byte[]) response.getBody());
+        assertFalse(response.getHeaders().containsKey(HttpHeaders.CONNECTION));
+        assertFalse(response.getHeaders().containsKey("Keep-Alive"));
+        assertFalse(response.getHeaders().containsKey(HttpHeaders.CONTENT_LENGTH));
+    }
+
+    @Test
+    public void exchangeWhenServerAnswersWithoutBodyRelayNullBody() {
+        server.createContext("/items/1", http -> {
+            http.sendResponseHeaders(204, -1);
+            http.close();
+        });
+
+        ResponseEntity<Object> response = exchange.exchange(HttpMethod.DELETE, uri("/items/1"), new HttpHeaders(),
+                null).join();
+
+        assertEquals(204, response.getStatusCodeValue());
+        assertNull(response.getBody());
+    }
+
+    @Test
+    public void exchangeWhenBodyGivenSendItAsJsonWithHeaders() {
+        AtomicReference<String> userId = new AtomicReference<>();
+        AtomicReference<String> method = new AtomicReference<>();
+        AtomicReference<String> body = new AtomicReference<>();
+        server.createContext("/items", http -> {
+            userId.set(http.getRequestHeaders().getFirst(USER_HEADER));
+            method.set(http.getRequestMethod());
+            body.set(new String(http.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            http.sendResponseHeaders(201, -1);
+            http.close();
+        });
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set(USER_HEADER, "7");
+
+        ResponseEntity<Object> response = exchange.exchange(HttpMethod.POST, uri("/items"), headers,
+                Map.of("name", List.of("Дрель"))).join();
+
+        assertEquals(201, response.getStatusCodeValue());
+        assertEquals("POST", method.get());
+        assertEquals("7", userId.get());
+        assertEquals("{\"name\":[\"Дрель\"]}", body.get());
+    }
+
+    @Test
+    public void exchangeWhenServerUnavailableFailWithResourceAccessException() throws IOException {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+
+        CompletionException error = assertThrows(CompletionException.class, () -> exchange.exchange(HttpMethod.GET,
+                URI.create("http://localhost:" + closedPort + "/items/1"), new HttpHeaders(), null).join());
+
+        assertTrue(error.getCause() instanceof ResourceAccessException);
+        assertTrue(error.getCause().getCause() instanceof IOException);
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.getAddress().getPort() + path);
+    }
+}
@@ -0,0 +1,151 @@
+package ru.practicum.shareit.client;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static ru.practicum.shareit.contstant.Constant.USER_HEADER;
+
+public class BaseClientTest {
+    private static final String SERVER_URL = "http://localhost:9090/items";
+
+    private MockRestServiceServer server;
+    private TestClient client;
+
+    @BeforeEach
+    public void setUp() {
+        RestTemplate rest = new RestTemplate();
+        rest.setUriTemplateHandler(new DefaultUriBuilderFactory(SERVER_URL));
+        client = new TestClient(rest);
+        server = MockRestServiceServer.bindTo(rest).build();
+    }
+
+    @Test
+    public void getWhenServerAnswersRelayStatusTypeAndBodyUnchanged() {
+        byte[] body = "{\"id\":1,\"name\":\"Дрель\"}".getBytes(StandardCharsets.UTF_8);
+        server.expect(requestTo(SERVER_URL + "/1"))
+                .andExpect(method(HttpMethod.GET))
+                .andExpect(header(USER_HEADER, "1"))
+                .andRespond(withStatus(HttpStatus.OK).contentType(MediaType.APPLICATION_JSON).body(body));
+
+        ResponseEntity<Object> response = client.get("/1", 1).join();
+
+        server.verify();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        assertArrayEquals(body, (byte[]) response.getBody());
+    }
+
+    @Test
+    public void getWhenServerSendsConnectionHeadersDropThemAndKeepOthers() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.CONNECTION, "keep-alive");
+        headers.set("Keep-Alive", "timeout=60");
+        headers.set(HttpHeaders.TRANSFER_ENCODING, "chunked");
+        headers.set(HttpHeaders.ETAG, "\"3\"");
+        server.expect(requestTo(SERVER_URL + "/1"))
+                .andRespond(withStatus(HttpStatus.OK).contentType(MediaType.APPLICATION_JSON).headers(headers)
+                        .body("{}"));
+
+        ResponseEntity<Object> response = client.get("/1", 1).join();
+
+        assertFalse(response.getHeaders().containsKey(HttpHeaders.CONNECTION));
+        assertFalse(response.getHeaders().containsKey("Keep-Alive"));
+        assertFalse(response.getHeaders().containsKey(HttpHeaders.TRANSFER_ENCODING));
+        assertFalse(response.getHeaders().containsKey(HttpHeaders.CONTENT_LENGTH));
+        assertEquals("\"3\"", response.getHeaders().getETag());
+    }
+
+    @Test
+    public void getWhenServerSendsContentLengthDropItAndReadWholeBody() {
+        byte[] body = "{\"id\":1}".getBytes(StandardCharsets.UTF_8);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentLength(body.length);
+        server.expect(requestTo(SERVER_URL + "/1"))
+                .andRespond(withStatus(HttpStatus.OK).contentType(MediaType.APPLICATION_JSON).headers(headers)
+                        .body(body));
+
+        ResponseEntity<Object> response = client.get("/1", 1).join();
+
+        assertArrayEquals(body, (byte[]) response.getBody());
+        assertFalse(response.getHeaders().containsKey(HttpHeaders.CONTENT_LENGTH));
+    }
+
+    @Test
+    public void getWhenServerAnswersWithClientErrorRelayItWithoutException() {
+        byte[] body = "{\"error\":\"Вещь не найдена\"}".getBytes(StandardCharsets.UTF_8);
+        server.expect(requestTo(SERVER_URL + "/1"))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND).contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                        .body(body));
+
+        ResponseEntity<Object> response = client.get("/1", 1).join();
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_PROBLEM_JSON, response.getHeaders().getContentType());
+        assertArrayEquals(body, (byte[]) response.getBody());
+    }
+
+    @Test
+    public void getWhenServerAnswersWithServerErrorRelayItWithoutException() {
+        server.expect(requestTo(SERVER_URL + "/1"))
+                .andRespond(withStatus(HttpStatus.INTERNAL_SERVER_ERROR).contentType(MediaType.APPLICATION_JSON)
+                        .body("{\"error\":\"Ошибка\"}"));
+
+        ResponseEntity<Object> response = client.get("/1", 1).join();
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+        assertEquals("{\"error\":\"Ошибка\"}", new String((byte[]) response.getBody(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void deleteWhenServerAnswersWithoutBodyRelayNullBody() {
+        server.expect(requestTo(SERVER_URL + "/1"))
+                .andExpect(method(HttpMethod.DELETE))
+                .andRespond(withStatus(HttpStatus.OK));
+
+        ResponseEntity<Object> response = client.delete("/1", 1).join();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNull(response.getBody());
+    }
+
+    @Test
+    public void getWhenBodyWithoutLengthSpansSeveralChunksReadItWhole() {
+        // первый кусок 1 КБ, дальше по 8 КБ: проверяются границы кусков и хвост
+        for (int size : new int[]{1, 1023, 1024, 1025, 1024 + 8192, 1024 + 8192 + 1, 50_000}) {
+            byte[] body = new byte[size];
+            new Random(size).nextBytes(body);
+            server.reset();
+            server.expect(requestTo(SERVER_URL + "/1"))
+                    .andRespond(withStatus(HttpStatus.OK).contentType(MediaType.APPLICATION_OCTET_STREAM).body(body));
+
+            ResponseEntity<Object> response = client.get("/1", 1).join();
+
+            assertArrayEquals(body, (byte[]) response.getBody(), "размер тела " + size);
+        }
+    }
+
+    private static class TestClient extends BaseClient {
+        private TestClient(RestTemplate rest) {
+            super(rest);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package ru.practicum.shareit.client;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import ru.practicum.shareit.item.ItemClient;
+import ru.practicum.shareit.item.ItemController;
+import ru.practicum.shareit.item.ItemImporter;
+import ru.practicum.shareit.ratelimit.RateLimiter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.practicum.shareit.contstant.Constant.USER_HEADER;
+
+@WebMvcTest(ItemController.class)
+@Import(CompletedFutureConfig.class)
+public class CompletedFutureReturnValueHandlerTest {
+    private static final String ITEM_URL = "/items/1";
+    private static final String ITEM_JSON = "{\"id\":1,\"name\":\"Дрель\"}";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private RequestMappingHandlerAdapter handlerAdapter;
+
+    @MockBean
+    private ItemClient client;
+
+    @MockBean
+    private ItemImporter importer;
+
+    @MockBean
+    private RateLimiter rateLimiter;
+
+    @Test
+    public void afterPropertiesSetPutHandlerBeforeDefaults() {
+        assertTrue(handlerAdapter.getReturnValueHandlers().get(0) instanceof CompletedFutureReturnValueHandler);
+    }
+
+    @Test
+    @SneakyThrows
+    public void getItemWhenFutureCompletedAnswerWithoutAsyncDispatch() {
+        when(client.getItem(1, 1)).thenReturn(CompletableFuture.completedFuture(itemResponse()));
+
+        mvc.perform(get(ITEM_URL).header(USER_HEADER, 1))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().json(ITEM_JSON));
+    }
+
+    @Test
+    @SneakyThrows
+    public void getItemWhenFuturePendingAnswerAfterAsyncDispatch() {
+        CompletableFuture<ResponseEntity<Object>> upstream = new CompletableFuture<>();
+        when(client.getItem(1, 1)).thenReturn(upstream);
+
+        MvcResult result = mvc.perform(get(ITEM_URL).header(USER_HEADER, 1))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        upstream.complete(itemResponse());
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().json(ITEM_JSON));
+    }
+
+    @Test
+    @SneakyThrows
+    public void getItemWhenCompletedFutureFailedMapErrorWithoutAsyncDispatch() {
+        when(client.getItem(1, 1)).thenReturn(CompletableFuture.failedFuture(
+                new ResourceAccessException("Сервер недоступен")));
+
+        mvc.perform(get(ITEM_URL).header(USER_HEADER, 1))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Сервер недоступен"));
+    }
+
+    @Test
+    @SneakyThrows
+    public void getItemWhenPendingFutureFailsMapErrorAsForCompletedOne() {
+        CompletableFuture<ResponseEntity<Object>> upstream = new CompletableFuture<>();
+        when(client.getItem(1, 1)).thenReturn(upstream);
+
+        MvcResult result = mvc.perform(get(ITEM_URL).header(USER_HEADER, 1))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // так AsyncServerExchange завершает future при ошибке ввода-вывода
+        upstream.completeExceptionally(new CompletionException(new ResourceAccessException("Сервер недоступен")));
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Сервер недоступен"));
+    }
+
+    @Test
+    @SneakyThrows
+    public void addItemWhenItemInvalidRejectBeforeClient() {
+        mvc.perform(post("/items").header(USER_HEADER, 1)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"\",\"description\":\"Дрель\",\"available\":true}"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(client);
+    }
+
+    private static ResponseEntity<Object> itemResponse() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return BaseClient.relay(200, headers, ITEM_JSON.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,159 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SingleFlightTest {
+    private static final String ENDPOINT = "items.get";
+    private static final String KEY = "/items/1|1";
+
+    private SimpleMeterRegistry meterRegistry;
+    private SingleFlight singleFlight;
+    private AtomicInteger calls;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        singleFlight = new SingleFlight(meterRegistry);
+        calls = new AtomicInteger();
+    }
+
+    @Test
+    public void executeWhenSameKeyInFlightShareOneUpstreamCall() {
+        CompletableFuture<ResponseEntity<Object>> upstream = new CompletableFuture<>();
+
+        CompletableFuture<ResponseEntity<Object>> first = singleFlight.execute(ENDPOINT, KEY, () -> call(upstream));
+        CompletableFuture<ResponseEntity<Object>> second = singleFlight.execute(ENDPOINT, KEY, () -> call(upstream));
+        ResponseEntity<Object> response = ResponseEntity.ok("вещь");
+        upstream.complete(response);
+
+        assertEquals(1, calls.get());
+        assertSame(response, first.join());
+        assertSame(response, second.join());
+        assertEquals(1, count("upstream"));
+        assertEquals(1, count("coalesced"));
+    }
+
+    @Test
+    public void executeWhenCalledFromManyThreadsShareOneUpstreamCall() throws Exception {
+        int threads = 8;
+        CompletableFuture<ResponseEntity<Object>> upstream = new CompletableFuture<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<CompletableFuture<ResponseEntity<Object>>>> flights = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                flights.add(executor.submit(() -> {
+                    start.await();
+                    return singleFlight.execute(ENDPOINT, KEY, () -> call(upstream));
+                }));
+            }
+            start.countDown();
+            List<CompletableFuture<ResponseEntity<Object>>> results = new ArrayList<>();
+            for (Future<CompletableFuture<ResponseEntity<Object>>> flight : flights) {
+                results.add(flight.get(5, TimeUnit.SECONDS));
+            }
+            // ответ сервера приходит только после того, как все вызовы вернули future
+            ResponseEntity<Object> response = ResponseEntity.ok("вещь");
+            upstream.complete(response);
+
+            assertEquals(1, calls.get());
+            for (CompletableFuture<ResponseEntity<Object>> result : results) {
+                assertSame(response, result.join());
+            }
+            assertEquals(1, count("upstream"));
+            assertEquals(threads - 1, count("coalesced"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void executeWhenPreviousCallCompletedGoUpstreamAgain() {
+        CompletableFuture<ResponseEntity<Object>> firstUpstream = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<Object>> secondUpstream = new CompletableFuture<>();
+
+        CompletableFuture<ResponseEntity<Object>> first = singleFlight.execute(ENDPOINT, KEY, () -> call(firstUpstream));
+        firstUpstream.complete(ResponseEntity.ok("старая"));
+        CompletableFuture<ResponseEntity<Object>> second = singleFlight.execute(ENDPOINT, KEY, () -> call(secondUpstream));
+        secondUpstream.complete(ResponseEntity.ok("новая"));
+
+        assertEquals(2, calls.get());
+        assertEquals("старая", first.join().getBody());
+        assertEquals("новая", second.join().getBody());
+        assertEquals(2, count("upstream"));
+    }
+
+    @Test
+    public void executeWhenUpstreamFailsPassErrorToEveryWaiterAndForgetKey() {
+        CompletableFuture<ResponseEntity<Object>> upstream = new CompletableFuture<>();
+        IllegalStateException error = new IllegalStateException("сервер недоступен");
+
+        CompletableFuture<ResponseEntity<Object>> first = singleFlight.execute(ENDPOINT, KEY, () -> call(upstream));
+        CompletableFuture<ResponseEntity<Object>> second = singleFlight.execute(ENDPOINT, KEY, () -> call(upstream));
+        upstream.completeExceptionally(error);
+
+        assertSame(error, assertThrows(ExecutionException.class, first::get).getCause());
+        assertSame(error, assertThrows(ExecutionException.class, second::get).getCause());
+
+        singleFlight.execute(ENDPOINT, KEY, () -> call(CompletableFuture.completedFuture(ResponseEntity.ok("вещь"))));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void executeWhenCallThrowsCompleteFutureExceptionallyAndForgetKey() {
+        IllegalStateException error = new IllegalStateException("не удалось отправить запрос");
+
+        CompletableFuture<ResponseEntity<Object>> failed = singleFlight.execute(ENDPOINT, KEY, () -> {
+            calls.incrementAndGet();
+            throw error;
+        });
+
+        assertTrue(failed.isCompletedExceptionally());
+        assertSame(error, assertThrows(ExecutionException.class, failed::get).getCause());
+        singleFlight.execute(ENDPOINT, KEY, () -> call(CompletableFuture.completedFuture(ResponseEntity.ok("вещь"))));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void executeWhenKeysDifferDoNotCoalesce() {
+        CompletableFuture<ResponseEntity<Object>> upstream = new CompletableFuture<>();
+
+        CompletableFuture<ResponseEntity<Object>> first = singleFlight.execute(ENDPOINT, KEY, () -> call(upstream));
+        CompletableFuture<ResponseEntity<Object>> second = singleFlight.execute(ENDPOINT, "/items/1|2",
+                () -> call(upstream));
+
+        assertEquals(2, calls.get());
+        assertNotSame(first, second);
+        assertEquals(2, count("upstream"));
+        assertEquals(0, count("coalesced"));
+    }
+
+    private CompletableFuture<ResponseEntity<Object>> call(CompletableFuture<ResponseEntity<Object>> upstream) {
+        calls.incrementAndGet();
+        return upstream;
+    }
+
+    private double count(String result) {
+        return meterRegistry.counter("gateway.single-flight.requests", "endpoint", ENDPOINT, "result", result).count();
+    }
+}
@@ -0,0 +1,80 @@
+package ru.practicum.shareit.item;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import ru.practicum.shareit.client.AsyncServerExchange;
+import ru.practicum.shareit.client.SingleFlight;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static ru.practicum.shareit.contstant.Constant.USER_HEADER;
+
+public class ItemClientTest {
+    private static final URI ITEM_URI = URI.create("http://localhost:9090/items/1");
+
+    private SimpleMeterRegistry meterRegistry;
+    private AsyncServerExchange exchange;
+    private ItemClient client;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        exchange = mock(AsyncServerExchange.class);
+        ObjectProvider<AsyncServerExchange> exchangeProvider = mock(ObjectProvider.class);
+        when(exchangeProvider.getIfAvailable()).thenReturn(exchange);
+        client = new ItemClient("http://localhost:9090", new RestTemplateBuilder(),
+                new SimpleClientHttpRequestFactory(), exchangeProvider, new SingleFlight(meterRegistry));
+    }
+
+    @Test
+    public void getItemWhenSameUserReadsSameItemConcurrentlyCallServerOnce() {
+        CompletableFuture<ResponseEntity<Object>> upstream = new CompletableFuture<>();
+        when(exchange.exchange(eq(HttpMethod.GET), eq(ITEM_URI), any(HttpHeaders.class), isNull())).thenReturn(upstream);
+
+        CompletableFuture<ResponseEntity<Object>> first = client.getItem(1, 1);
+        CompletableFuture<ResponseEntity<Object>> second = client.getItem(1, 1);
+
+        assertSame(first, second);
+        verify(exchange, times(1)).exchange(eq(HttpMethod.GET), eq(ITEM_URI), any(HttpHeaders.class), isNull());
+        assertEquals(1, meterRegistry.counter("gateway.single-flight.requests", "endpoint", "items.get",
+                "result", "coalesced").count());
+    }
+
+    @Test
+    public void getItemWhenUsersDifferCallServerForEachUser() {
+        when(exchange.exchange(eq(HttpMethod.GET), eq(ITEM_URI), any(HttpHeaders.class), isNull()))
+                .thenReturn(new CompletableFuture<>(), new CompletableFuture<>());
+
+        CompletableFuture<ResponseEntity<Object>> owner = client.getItem(1, 1);
+        CompletableFuture<ResponseEntity<Object>> booker = client.getItem(2, 1);
+
+        assertNotSame(owner, booker);
+        ArgumentCaptor<HttpHeaders> headers = ArgumentCaptor.forClass(HttpHeaders.class);
+        verify(exchange, times(2)).exchange(eq(HttpMethod.GET), eq(ITEM_URI), headers.capture(), isNull());
+        assertEquals(List.of(List.of("1"), List.of("2")), List.of(headers.getAllValues().get(0).get(USER_HEADER),
+                headers.getAllValues().get(1).get(USER_HEADER)));
+        assertEquals(2, meterRegistry.counter("gateway.single-flight.requests", "endpoint", "items.get",
+                "result", "upstream").count());
+    }
+}
@@ -0,0 +1,61 @@
+package ru.practicum.shareit.item;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.ratelimit.RateLimiter;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.practicum.shareit.contstant.Constant.USER_HEADER;
+
+@WebMvcTest(ItemController.class)
+public class ItemControllerTest {
+    private static final String URL = "/items/search";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @MockBean
+    private ItemClient client;
+
+    @MockBean
+    private ItemImporter importer;
+
+    @MockBean
+    private RateLimiter rateLimiter;
+
+    @Test
+    @SneakyThrows
+    public void searchWhenSortIsUnknownReturnStatusIsBadRequest() {
+        mvc.perform(get(URL).header(USER_HEADER, 1).param("text", "дрель").param("sort", "price"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("Unknown sort: price")));
+
+        verifyNoInteractions(client);
+    }
+
+    @Test
+    @SneakyThrows
+    public void searchWhenSortIsRelevanceInAnyCasePassItToClient() {
+        when(client.search(1, 0, 10, "дрель", SearchSort.RELEVANCE))
+                .thenReturn(CompletableFuture.completedFuture(ResponseEntity.ok(List.of())));
+
+        mvc.perform(get(URL).header(USER_HEADER, 1).param("text", "дрель").param("sort", "Relevance"))
+                .andExpect(status().isOk());
+
+        verify(client).search(1, 0, 10, "дрель", SearchSort.RELEVANCE);
+    }
+}
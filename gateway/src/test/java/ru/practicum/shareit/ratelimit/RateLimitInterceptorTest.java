@@ -0,0 +1,132 @@
+package ru.practicum.shareit.ratelimit;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.item.ItemClient;
+import ru.practicum.shareit.item.ItemController;
+import ru.practicum.shareit.item.ItemImporter;
+import ru.practicum.shareit.item.SearchSort;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.practicum.shareit.contstant.Constant.USER_HEADER;
+
+@WebMvcTest(ItemController.class)
+public class RateLimitInterceptorTest {
+    private static final String SEARCH_URL = "/items/search";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @MockBean
+    private ItemClient client;
+
+    @MockBean
+    private ItemImporter importer;
+
+    @MockBean
+    private RateLimiter rateLimiter;
+
+    @Test
+    @SneakyThrows
+    public void searchWhenBudgetSpentReturnTooManyRequestsWithRetryAfter() {
+        when(rateLimiter.tryAcquire("items.search", 1)).thenReturn(TimeUnit.MILLISECONDS.toNanos(1500));
+
+        mvc.perform(get(SEARCH_URL).header(USER_HEADER, 1).param("text", "дрель"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"));
+
+        verifyNoInteractions(client);
+    }
+
+    @Test
+    @SneakyThrows
+    public void searchWhenWaitIsShorterThanSecondRoundRetryAfterUpToOne() {
+        when(rateLimiter.tryAcquire("items.search", 1)).thenReturn(1L);
+
+        mvc.perform(get(SEARCH_URL).header(USER_HEADER, 1).param("text", "дрель"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+    }
+
+    @Test
+    @SneakyThrows
+    public void searchWhenWaitIsWholeSecondsKeepRetryAfter() {
+        when(rateLimiter.tryAcquire("items.search", 1)).thenReturn(TimeUnit.SECONDS.toNanos(2));
+
+        mvc.perform(get(SEARCH_URL).header(USER_HEADER, 1).param("text", "дрель"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"));
+    }
+
+    @Test
+    @SneakyThrows
+    public void searchWhenBudgetLeftPassRequestToClient() {
+        when(rateLimiter.tryAcquire("items.search", 1)).thenReturn(0L);
+        when(client.search(1, 0, 10, "дрель", SearchSort.ID))
+                .thenReturn(CompletableFuture.completedFuture(ResponseEntity.ok(List.of())));
+
+        mvc.perform(get(SEARCH_URL).header(USER_HEADER, 1).param("text", "дрель"))
+                .andExpect(status().isOk());
+
+        verify(client).search(1, 0, 10, "дрель", SearchSort.ID);
+    }
+
+    @Test
+    @SneakyThrows
+    public void searchWhenUserHeaderIsMissingSkipLimiter() {
+        mvc.perform(get(SEARCH_URL).param("text", "дрель"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(rateLimiter);
+    }
+
+    @Test
+    @SneakyThrows
+    public void searchWhenUserHeaderIsNotNumberSkipLimiter() {
+        mvc.perform(get(SEARCH_URL).header(USER_HEADER, "abc").param("text", "дрель"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(rateLimiter);
+    }
+
+    @Test
+    @SneakyThrows
+    public void getItemWhenMethodIsNotRateLimitedSkipLimiter() {
+        when(client.getItem(anyInt(), anyInt()))
+                .thenReturn(CompletableFuture.completedFuture(ResponseEntity.ok(List.of())));
+
+        mvc.perform(get("/items/1").header(USER_HEADER, 1))
+                .andExpect(status().isOk());
+
+        verifyNoInteractions(rateLimiter);
+    }
+
+    @Test
+    @SneakyThrows
+    public void suggestWhenBudgetSpentUseItsOwnEndpointBudget() {
+        when(rateLimiter.tryAcquire("items.suggest", 1)).thenReturn(TimeUnit.SECONDS.toNanos(1));
+
+        mvc.perform(get("/items/suggest").header(USER_HEADER, 1).param("prefix", "дре"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+
+        verify(rateLimiter).tryAcquire("items.suggest", 1);
+        verifyNoInteractions(client);
+    }
+}
@@ -0,0 +1,99 @@
+package ru.practicum.shareit.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RateLimiterTest {
+    private static final String ENDPOINT = "items.search";
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicLong now;
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    public void setUp() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("shareit.rate-limit.items.search.capacity", "3")
+                .withProperty("shareit.rate-limit.items.search.refill-per-second", "1");
+        meterRegistry = new SimpleMeterRegistry();
+        now = new AtomicLong(5 * SECOND);
+        rateLimiter = new RateLimiter(environment, meterRegistry, Duration.ofSeconds(10), now::get);
+    }
+
+    @Test
+    public void tryAcquireWhenBurstEqualsCapacityPassItAndRejectNextRequest() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, rateLimiter.tryAcquire(ENDPOINT, 1));
+        }
+
+        assertEquals(SECOND, rateLimiter.tryAcquire(ENDPOINT, 1));
+        assertEquals(1, meterRegistry.get("gateway.rate-limit.rejected").tag("endpoint", ENDPOINT).counter().count());
+    }
+
+    @Test
+    public void tryAcquireWhenPartOfIntervalPassedReturnRestOfIt() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire(ENDPOINT, 1);
+        }
+
+        now.addAndGet(SECOND * 4 / 10);
+
+        assertEquals(SECOND * 6 / 10, rateLimiter.tryAcquire(ENDPOINT, 1));
+    }
+
+    @Test
+    public void tryAcquireWhenIntervalPassedRefillOneToken() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire(ENDPOINT, 1);
+        }
+
+        now.addAndGet(SECOND);
+
+        assertEquals(0, rateLimiter.tryAcquire(ENDPOINT, 1));
+        assertEquals(SECOND, rateLimiter.tryAcquire(ENDPOINT, 1));
+    }
+
+    @Test
+    public void tryAcquireWhenOtherUserSpentBudgetPassRequest() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire(ENDPOINT, 1);
+        }
+
+        assertEquals(0, rateLimiter.tryAcquire(ENDPOINT, 2));
+    }
+
+    @Test
+    public void tryAcquireWhenBucketIdleLongerThanTimeoutEvictIt() {
+        rateLimiter.tryAcquire(ENDPOINT, 1);
+        now.addAndGet(6 * SECOND);
+        rateLimiter.tryAcquire(ENDPOINT, 2);
+        assertEquals(2, rateLimiter.bucketCount());
+
+        now.addAndGet(6 * SECOND);
+        rateLimiter.tryAcquire(ENDPOINT, 3);
+
+        // корзина пользователя 1 простояла полной 11 с, корзина пользователя 2 — только 5 с
+        assertEquals(2, rateLimiter.bucketCount());
+        assertEquals(0, rateLimiter.tryAcquire(ENDPOINT, 1));
+        assertEquals(3, rateLimiter.bucketCount());
+    }
+
+    @Test
+    public void tryAcquireWhenBudgetIsInvalidThrowException() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("shareit.rate-limit.items.search.capacity", "0");
+        RateLimiter invalid = new RateLimiter(environment, meterRegistry, Duration.ofSeconds(10), now::get);
+
+        assertThrows(IllegalStateException.class, () -> invalid.tryAcquire(ENDPOINT, 1));
+    }
+}
@@ -2,8 +2,10 @@ package ru.practicum.shareit.booking;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.model.BookingCursor;
 import ru.practicum.shareit.booking.model.RequestBooking;
 import ru.practicum.shareit.booking.service.BookingService;
 
@@ -48,18 +50,32 @@ public class BookingController {
     }
 
     @GetMapping
-    public List<BookingDto> getBookingByUser(@RequestHeader(HEADER_USER) Integer userId,
-                                             @RequestParam(required = false, defaultValue = "ALL") String state,
-                                             @RequestParam(defaultValue = "0") int from,
-                                             @RequestParam(defaultValue = "10") int size) {
-        return bookingService.getBookingByUser(new RequestBooking(userId, state, from, size));
+    public ResponseEntity<List<BookingDto>> getBookingByUser(@RequestHeader(HEADER_USER) Integer userId,
+                                                             @RequestParam(required = false, defaultValue = "ALL") String state,
+                                                             @RequestParam(defaultValue = "0") int from,
+                                                             @RequestParam(defaultValue = "10") int size,
+                                                             @RequestParam(required = false) String cursor) {
+        RequestBooking requestBooking = new RequestBooking(userId, state, from, size, cursor);
+        return withNextCursor(bookingService.getBookingByUser(requestBooking), requestBooking);
     }
 
     @GetMapping("/owner")
-    public List<BookingDto> getBookingForOwner(@RequestHeader(HEADER_USER) Integer userId,
-                                               @RequestParam(required = false, defaultValue = "ALL") String state,
-                                               @RequestParam(defaultValue = "0") int from,
-                                               @RequestParam(defaultValue = "10") int size) {
-        return bookingService.getBookingForOwner(new RequestBooking(userId, state, from, size));
+    public ResponseEntity<List<BookingDto>> getBookingForOwner(@RequestHeader(HEADER_USER) Integer userId,
+                                                               @RequestParam(required = false, defaultValue = "ALL") String state,
+                                                               @RequestParam(defaultValue = "0") int from,
+                                                               @RequestParam(defaultValue = "10") int size,
+                                                               @RequestParam(required = false) String cursor) {
+        RequestBooking requestBooking = new RequestBooking(userId, state, from, size, cursor);
+        return withNextCursor(bookingService.getBookingForOwner(requestBooking), requestBooking);
+    }
+
+    private ResponseEntity<List<BookingDto>> withNextCursor(List<BookingDto> bookings, RequestBooking requestBooking) {
+        if (requestBooking.getCursor() == null || bookings.size() < requestBooking.getSize()) {
+            return ResponseEntity.ok(bookings);
+        }
+        BookingDto last = bookings.get(bookings.size() - 1);
+        return ResponseEntity.ok()
+                .header(HEADER_NEXT_CURSOR, new BookingCursor(last.getEnd(), last.getId()).encode())
+                .body(bookings);
     }
 }
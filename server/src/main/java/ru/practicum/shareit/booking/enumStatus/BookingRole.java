@@ -0,0 +1,6 @@
+package ru.practicum.shareit.booking.enumStatus;
+
+public enum BookingRole {
+    BOOKER, // пользователь, создавший бронирование
+    OWNER // владелец забронированной вещи
+}
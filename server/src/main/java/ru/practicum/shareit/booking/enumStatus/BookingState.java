@@ -0,0 +1,21 @@
+package ru.practicum.shareit.booking.enumStatus;
+
+import ru.practicum.shareit.item.exception.NotValidationException;
+
+public enum BookingState {
+    ALL, // все бронирования
+    CURRENT, // текущие
+    PAST, // завершенные
+    FUTURE, // будущие
+    WAITING, // будущие, ожидающие подтверждения
+    REJECTED; // отклоненные
+
+    public static BookingState from(String state) {
+        for (BookingState value : values()) {
+            if (value.name().equalsIgnoreCase(state)) {
+                return value;
+            }
+        }
+        throw new NotValidationException("Unknown state: " + state.toUpperCase());
+    }
+}
@@ -0,0 +1,164 @@
+package ru.practicum.shareit.booking.index;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.enumStatus.Status;
+import ru.practicum.shareit.booking.exception.BookingConflictException;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Индекс занятых интервалов [start, end) по каждой вещи. Бронирования в статусах WAITING и APPROVED
+ * хранятся в виде непересекающихся отрезков, поэтому проверка свободного окна выполняется за O(log n).
+ * Таймлайн вещи загружается из БД при первом обращении и дальше поддерживается записями сервиса.
+ * Каждый таймлайн помечен версией вещи: если версия в БД ушла вперед (запись с другого узла или
+ * откат транзакции), таймлайн перечитывается.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookingIntervalIndex {
+    public static final Set<Status> BLOCKING_STATUSES = EnumSet.of(Status.WAITING, Status.APPROVED);
+
+    private final BookingRepository bookingRepository;
+    private final ConcurrentMap<Integer, Timeline> timelines = new ConcurrentHashMap<>();
+
+    public Booking reserve(Integer itemId, Integer version, LocalDateTime start, LocalDateTime end,
+                           Supplier<Booking> writer) {
+        Timeline timeline = timeline(itemId, version);
+        synchronized (timeline) {
+            if (!timeline.isFree(start, end)) {
+                throw new BookingConflictException(String.format("Вещь с id: %d уже забронирована на период с %s по %s",
+                        itemId, start, end));
+            }
+            Booking booking = writer.get();
+            timeline.add(booking.getId(), booking.getStart(), booking.getEnd());
+            timeline.advance();
+            return booking;
+        }
+    }
+
+    public void release(Booking booking, Integer version) {
+        Integer itemId = booking.getItem().getId();
+        Timeline timeline = timelines.get(itemId);
+        if (timeline == null) {
+            return;
+        }
+        synchronized (timeline) {
+            if (!Objects.equals(timeline.version, version)) {
+                timelines.remove(itemId, timeline);
+                return;
+            }
+            timeline.remove(booking.getId(), booking.getStart());
+            timeline.advance();
+        }
+    }
+
+    public void advance(Integer itemId, Integer version) {
+        Timeline timeline = timelines.get(itemId);
+        if (timeline == null) {
+            return;
+        }
+        synchronized (timeline) {
+            if (Objects.equals(timeline.version, version)) {
+                timeline.advance();
+            } else {
+                timelines.remove(itemId, timeline);
+            }
+        }
+    }
+
+    public void evict(Integer itemId) {
+        timelines.remove(itemId);
+    }
+
+    private Timeline timeline(Integer itemId, Integer version) {
+        return timelines.compute(itemId, (id, current) ->
+                current != null && Objects.equals(current.version, version) ? current : load(id, version));
+    }
+
+    private Timeline load(Integer itemId, Integer version) {
+        Timeline timeline = new Timeline(version);
+        for (Booking booking : bookingRepository.findAllByItemIdAndStatusIn(itemId, BLOCKING_STATUSES)) {
+            timeline.add(booking.getId(), booking.getStart(), booking.getEnd());
+        }
+        return timeline;
+    }
+
+    private static final class Timeline {
+        private final NavigableMap<LocalDateTime, LocalDateTime> segments = new TreeMap<>();
+        private final NavigableMap<LocalDateTime, Map<Integer, LocalDateTime>> bookings = new TreeMap<>();
+        private Integer version;
+
+        Timeline(Integer version) {
+            this.version = version;
+        }
+
+        void advance() {
+            version = version == null ? null : version + 1;
+        }
+
+        boolean isFree(LocalDateTime start, LocalDateTime end) {
+            Map.Entry<LocalDateTime, LocalDateTime> segment = segments.lowerEntry(end);
+            return segment == null || !segment.getValue().isAfter(start);
+        }
+
+        void add(Integer bookingId, LocalDateTime start, LocalDateTime end) {
+            bookings.computeIfAbsent(start, key -> new HashMap<>()).put(bookingId, end);
+            merge(start, end);
+        }
+
+        void remove(Integer bookingId, LocalDateTime start) {
+            Map<Integer, LocalDateTime> sameStart = bookings.get(start);
+            if (sameStart == null || sameStart.remove(bookingId) == null) {
+                return;
+            }
+            if (sameStart.isEmpty()) {
+                bookings.remove(start);
+            }
+            Map.Entry<LocalDateTime, LocalDateTime> segment = segments.floorEntry(start);
+            segments.remove(segment.getKey());
+
+            List<Map.Entry<LocalDateTime, LocalDateTime>> rest = new ArrayList<>();
+            bookings.subMap(segment.getKey(), true, segment.getValue(), true)
+                    .forEach((bookingStart, ends) -> ends.values()
+                            .forEach(bookingEnd -> rest.add(Map.entry(bookingStart, bookingEnd))));
+            rest.forEach(interval -> merge(interval.getKey(), interval.getValue()));
+        }
+
+        private void merge(LocalDateTime start, LocalDateTime end) {
+            LocalDateTime from = start;
+            LocalDateTime to = end;
+            Map.Entry<LocalDateTime, LocalDateTime> previous = segments.floorEntry(start);
+            if (previous != null && !previous.getValue().isBefore(start)) {
+                from = previous.getKey();
+                to = later(to, previous.getValue());
+                segments.remove(previous.getKey());
+            }
+            Map.Entry<LocalDateTime, LocalDateTime> next = segments.ceilingEntry(from);
+            while (next != null && !next.getKey().isAfter(to)) {
+                to = later(to, next.getValue());
+                segments.remove(next.getKey());
+                next = segments.ceilingEntry(from);
+            }
+            segments.put(from, to);
+        }
+
+        private static LocalDateTime later(LocalDateTime one, LocalDateTime two) {
+            return one.isAfter(two) ? one : two;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package ru.practicum.shareit.booking.index;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.enumStatus.Status;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Поддерживает ссылки вещи на последнее и ближайшее бронирование (items.last_booking_id, items.next_booking_id),
+ * чтобы чтение вещи не перебирало всю историю бронирований. Ссылки обновляются сервисом бронирований
+ * внутри транзакции записи, а периодическая задача переносит начавшееся ближайшее бронирование в последнее.
+ * Ссылки меняются на управляемой сущности вещи, поэтому Hibernate обновляет и запись вещи в кэше
+ * второго уровня, а не сбрасывает весь регион, как после массового update-запроса. Поля ссылок
+ * исключены из оптимистической блокировки, так что их обновление не меняет версию вещи.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class ItemBookingPointers {
+    BookingRepository bookingRepository;
+    ItemRepository itemRepository;
+    ItemLocks itemLocks;
+    TransactionTemplate transactionTemplate;
+
+    public void added(Item item, Booking booking, LocalDateTime now) {
+        Booking last = item.getLastBooking();
+        Booking next = item.getNextBooking();
+        if (booking.getStart().isBefore(now)) {
+            if (last == null || booking.getEnd().isAfter(last.getEnd())) {
+                item.setLastBooking(booking);
+            }
+        } else if (booking.getStart().isAfter(now)) {
+            if (next == null || booking.getEnd().isBefore(next.getEnd())) {
+                item.setNextBooking(booking);
+            }
+        }
+    }
+
+    public void removed(Item item, Booking booking, LocalDateTime now) {
+        if (isSame(item.getLastBooking(), booking) || isSame(item.getNextBooking(), booking)) {
+            refresh(item, now);
+        }
+    }
+
+    public Booking findLast(Integer itemId, LocalDateTime now) {
+        return bookingRepository.findFirstByItemIdAndStartBeforeAndStatusNotOrderByEndDesc(itemId, now, Status.REJECTED)
+                .orElse(null);
+    }
+
+    public Booking findNext(Integer itemId, LocalDateTime now) {
+        return bookingRepository.findFirstByItemIdAndStartAfterAndStatusNotOrderByEndAsc(itemId, now, Status.REJECTED)
+                .orElse(null);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.item-bookings.roll-forward-ms:60000}")
+    public void rollForward() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Integer> itemIds = itemRepository.findIdsWithStartedNextBooking(now);
+        for (Integer itemId : itemIds) {
+            Lock lock = itemLocks.get(itemId);
+            lock.lock();
+            try {
+                transactionTemplate.executeWithoutResult(status -> itemRepository.findById(itemId)
+                        .ifPresent(item -> refresh(item, now)));
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (!itemIds.isEmpty()) {
+            log.info("Обновлены последние и ближайшие бронирования для {} вещей", itemIds.size());
+        }
+    }
+
+    private void refresh(Item item, LocalDateTime now) {
+        item.setLastBooking(findLast(item.getId(), now));
+        item.setNextBooking(findNext(item.getId(), now));
+    }
+
+    private boolean isSame(Booking pointer, Booking booking) {
+        return pointer != null && Objects.equals(pointer.getId(), booking.getId());
+    }
+}
@@ -0,0 +1,23 @@
+package ru.practicum.shareit.booking.index;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Component
+public class ItemLocks {
+    private static final int STRIPES = 256;
+
+    private final Lock[] locks = new Lock[STRIPES];
+
+    public ItemLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public Lock get(Integer itemId) {
+        return locks[Math.floorMod(itemId.hashCode(), STRIPES)];
+    }
+}
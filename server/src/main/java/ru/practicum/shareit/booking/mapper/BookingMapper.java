@@ -6,6 +6,7 @@ import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
 
 import java.util.List;
@@ -14,9 +15,10 @@ import java.util.stream.Collectors;
 @UtilityClass
 public class BookingMapper {
     public static BookingDto toBookingDto(Booking booking) {
+        UserDto booker = UserMapper.toUserDto(booking.getBooker());
         return new BookingDto(booking.getId(),
-                UserMapper.toUserDto(booking.getBooker()),
-                UserMapper.toUserDto(booking.getBooker()).getId(),
+                booker,
+                booker.getId(),
                 ItemMapper.toItemDto(booking.getItem()),
                 booking.getItem().getId(),
                 booking.getItem().getName(),
@@ -19,7 +19,8 @@ import java.time.LocalDateTime;
 @Table(name = "bookings")
 public class Booking implements Comparable<Booking> {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookings_seq")
+    @SequenceGenerator(name = "bookings_seq", sequenceName = "bookings_seq", allocationSize = 50)
     Integer id;
     @Column(name = "start_date")
     LocalDateTime start;
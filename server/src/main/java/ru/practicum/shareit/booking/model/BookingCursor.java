@@ -0,0 +1,27 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.Value;
+import ru.practicum.shareit.cursor.CursorCodec;
+
+import java.time.LocalDateTime;
+
+/**
+ * Непрозрачный курсор постраничной выдачи бронирований: позиция последней отданной записи
+ * в порядке (end desc, id desc). Следующая страница начинается строго после нее.
+ */
+@Value
+public class BookingCursor {
+    LocalDateTime end;
+    Integer id;
+
+    /**
+     * Возвращает null для пустого курсора: первая страница выдачи.
+     */
+    public static BookingCursor decode(String cursor) {
+        return CursorCodec.decode(cursor, BookingCursor::new);
+    }
+
+    public String encode() {
+        return CursorCodec.encode(end, id);
+    }
+}
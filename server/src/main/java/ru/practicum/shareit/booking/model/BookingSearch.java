@@ -0,0 +1,27 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.booking.enumStatus.BookingRole;
+import ru.practicum.shareit.booking.enumStatus.BookingState;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class BookingSearch {
+
+    BookingRole role;
+    BookingState state;
+    Integer userId;
+    LocalDateTime now;
+    PageRequest page;
+    boolean keyset;
+    BookingCursor after;
+}
@@ -16,4 +16,5 @@ public class RequestBooking {
     String state;
     int from;
     int size;
+    String cursor;
 }
@@ -1,6 +1,6 @@
 package ru.practicum.shareit.booking.repository;
 
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.booking.enumStatus.Status;
@@ -8,54 +8,35 @@ import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.model.Item;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface BookingRepository extends JpaRepository<Booking, Integer> {
-    @Query("select b from Booking b " +
-            "join b.item i " +
-            "join i.owner o " +
-            "where o.id = ?1 " +
-            "order by b.start desc")
-    List<Booking> findBookingByUserId(Integer userId, PageRequest pageRequest);
+public interface BookingRepository extends JpaRepository<Booking, Integer>, BookingSearchRepository {
+    @Override
+    @EntityGraph(attributePaths = {"item", "item.owner", "booker"})
+    Optional<Booking> findById(Integer bookingId);
 
-    List<Booking> findAllByItemOwnerIdAndStartIsBeforeAndEndIsAfterOrderByEndDesc(Integer userId, LocalDateTime one,
-                                                                                  LocalDateTime two,
-                                                                                  PageRequest pageRequest);
+    boolean existsByBookerIdAndItemIdAndStatusAndEndBefore(Integer bookerId, Integer itemId, Status status,
+                                                           LocalDateTime time);
 
-    List<Booking> findAllByItemOwnerIdAndEndIsBeforeOrderByEndDesc(Integer userId, LocalDateTime time,
-                                                                   PageRequest pageRequest);
-
-    List<Booking> findAllByItemOwnerIdAndStartIsAfterOrderByEndDesc(Integer userId, LocalDateTime time,
-                                                                    PageRequest pageRequest);
-
-    List<Booking> findAllByItemOwnerIdAndStartIsAfterAndStatusOrderByEndDesc(Integer userId, LocalDateTime time,
-                                                                             Status status, PageRequest pageRequest);
-
-    List<Booking> findAllByItemOwnerIdAndStatusOrderByEndDesc(Integer userId, Status status, PageRequest pageRequest);
-
-    List<Booking> findAllByBookerIdOrderByEndDesc(Integer userId, PageRequest pageRequest);
-
-    List<Booking> findAllByBookerIdAndStartIsBeforeAndEndIsAfterOrderByEndDesc(Integer userId, LocalDateTime one,
-                                                                               LocalDateTime two, PageRequest pageRequest);
-
-    List<Booking> findAllByBookerIdAndEndIsBeforeOrderByEndDesc(Integer userId, LocalDateTime time,
-                                                                PageRequest pageRequest);
-
-    List<Booking> findAllByBookerIdAndEndIsBeforeOrderByEndDesc(Integer userId, LocalDateTime time);
-
-    List<Booking> findAllByBookerIdAndStartIsAfterOrderByEndDesc(Integer userId, LocalDateTime time,
-                                                                 PageRequest pageRequest);
+    @Query("select b " +
+            "from Booking as b " +
+            "join fetch b.booker " +
+            "where b.item in ?1 " +
+            "order by b.start")
+    List<Booking> findAllByItems(List<Item> items);
 
-    List<Booking> findAllByBookerIdAndStartIsAfterAndStatusOrderByEndDesc(Integer userId, LocalDateTime time,
-                                                                          Status status, PageRequest pageRequest);
+    @Query("select b.item.id from Booking b where b.id = ?1")
+    Optional<Integer> findItemIdById(Integer bookingId);
 
-    List<Booking> findAllByBookerIdAndStatusOrderByEndDesc(Integer userId, Status status, PageRequest pageRequest);
+    List<Booking> findAllByItemIdAndStatusIn(Integer itemId, Collection<Status> statuses);
 
-    List<Booking> findAllByItemId(Integer itemId);
+    @EntityGraph(attributePaths = {"booker"})
+    Optional<Booking> findFirstByItemIdAndStartBeforeAndStatusNotOrderByEndDesc(Integer itemId, LocalDateTime now,
+                                                                                Status status);
 
-    @Query("select b " +
-            "from Booking as b " +
-            "join b.item as i " +
-            "where i in ?1")
-    List<Booking> findAllByItems(List<Item> items);
+    @EntityGraph(attributePaths = {"booker"})
+    Optional<Booking> findFirstByItemIdAndStartAfterAndStatusNotOrderByEndAsc(Integer itemId, LocalDateTime now,
+                                                                              Status status);
 }
@@ -0,0 +1,81 @@
+package ru.practicum.shareit.booking.repository;
+
+import ru.practicum.shareit.booking.enumStatus.BookingRole;
+import ru.practicum.shareit.booking.enumStatus.BookingState;
+import ru.practicum.shareit.booking.enumStatus.Status;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingSearch;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class BookingSearchRepositoryImpl implements BookingSearchRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Booking> search(BookingSearch search) {
+        Map<String, Object> parameters = new HashMap<>();
+        StringBuilder jpql = new StringBuilder("select b from Booking b " +
+                "join fetch b.item i " +
+                "join fetch i.owner o " +
+                "join fetch b.booker u ");
+
+        if (search.getRole() == BookingRole.OWNER) {
+            jpql.append("where o.id = :userId ");
+        } else {
+            jpql.append("where u.id = :userId ");
+        }
+        parameters.put("userId", search.getUserId());
+
+        switch (search.getState()) {
+            case CURRENT:
+                jpql.append("and b.start < :now and b.end > :now ");
+                parameters.put("now", search.getNow());
+                break;
+            case PAST:
+                jpql.append("and b.end < :now ");
+                parameters.put("now", search.getNow());
+                break;
+            case FUTURE:
+                jpql.append("and b.start > :now ");
+                parameters.put("now", search.getNow());
+                break;
+            case WAITING:
+                jpql.append("and b.start > :now and b.status = :status ");
+                parameters.put("now", search.getNow());
+                parameters.put("status", Status.WAITING);
+                break;
+            case REJECTED:
+                jpql.append("and b.status = :status ");
+                parameters.put("status", Status.REJECTED);
+                break;
+            default:
+                break;
+        }
+
+        if (search.getAfter() != null) {
+            jpql.append("and (b.end < :afterEnd or (b.end = :afterEnd and b.id < :afterId)) ");
+            parameters.put("afterEnd", search.getAfter().getEnd());
+            parameters.put("afterId", search.getAfter().getId());
+        }
+
+        if (!search.isKeyset() && search.getRole() == BookingRole.OWNER && search.getState() == BookingState.ALL) {
+            jpql.append("order by b.start desc, b.id desc");
+        } else {
+            jpql.append("order by b.end desc, b.id desc");
+        }
+
+        TypedQuery<Booking> query = entityManager.createQuery(jpql.toString(), Booking.class);
+        parameters.forEach(query::setParameter);
+        if (search.getPage() != null) {
+            query.setFirstResult((int) search.getPage().getOffset());
+            query.setMaxResults(search.getPage().getPageSize());
+        }
+        return query.getResultList();
+    }
+}
@@ -4,15 +4,26 @@ import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.enumStatus.BookingRole;
+import ru.practicum.shareit.booking.enumStatus.BookingState;
 import ru.practicum.shareit.booking.enumStatus.Status;
+import ru.practicum.shareit.booking.exception.BookingConflictException;
 import ru.practicum.shareit.booking.exception.NotFoundBookingException;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.index.ItemBookingPointers;
+import ru.practicum.shareit.booking.index.ItemLocks;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingCursor;
+import ru.practicum.shareit.booking.model.BookingSearch;
 import ru.practicum.shareit.booking.model.RequestBooking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.cache.ItemViewCache;
 import ru.practicum.shareit.item.exception.NotFoundItemException;
 import ru.practicum.shareit.item.exception.NotValidationException;
 import ru.practicum.shareit.item.model.Item;
@@ -21,51 +32,75 @@ import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.exception.NotFoundUserException;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
 public class BookingServiceImpl implements BookingService {
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+    private static final Duration PRESENT_TOLERANCE = Duration.ofMinutes(1);
+
     BookingRepository bookingRepository;
     UserRepository userRepository;
     ItemRepository itemRepository;
+    BookingIntervalIndex bookingIntervalIndex;
+    ItemLocks itemLocks;
+    ItemBookingPointers itemBookingPointers;
+    ItemViewCache itemViewCache;
+    TransactionTemplate transactionTemplate;
 
     @Override
     public BookingDto createBooking(BookingDto bookingDto, Integer userId) {
         User user = checkUser(userId);
-        Item item = itemRepository.findById(bookingDto.getItemId()).orElseThrow(() ->
-                new NotFoundItemException(String.format("Вещи с id: %d не существует.", bookingDto.getItemId())));
-        if (item.getOwner() != null) {
-            if (item.getOwner().getId().equals(userId)) {
-                throw new NotFoundItemException("Пользователь выложивший вещь не может ее забронировать");
+        return writeForItem(bookingDto.getItemId(), item -> {
+            if (item.getOwner() != null) {
+                if (item.getOwner().getId().equals(userId)) {
+                    throw new NotFoundItemException("Пользователь выложивший вещь не может ее забронировать");
+                }
             }
-        }
 
-        if (item.getAvailable().equals(false)) {
-            throw new NotValidationException(String.format("Вещь с id: %d недоступна для бронирования", item.getId()));
-        }
+            if (item.getAvailable().equals(false)) {
+                throw new NotValidationException(String.format("Вещь с id: %d недоступна для бронирования", item.getId()));
+            }
 
-        if (bookingDto.getStart().isAfter(bookingDto.getEnd()) || bookingDto.getStart().isEqual(bookingDto.getEnd())) {
-            throw new NotValidationException("Некорректное время старта или окончания");
-        }
-        Booking booking = bookingRepository.save(BookingMapper.toBooking(bookingDto, user, item));
-        log.info("Бронирование с id: {} создано", booking.getId());
-        return BookingMapper.toBookingDto(booking);
+            if (bookingDto.getStart().isAfter(bookingDto.getEnd()) || bookingDto.getStart().isEqual(bookingDto.getEnd())) {
+                throw new NotValidationException("Некорректное время старта или окончания");
+            }
+            // прошедшее время отклоняется до проверки пересечений, иначе оно получило бы 409 вместо 400;
+            // запас покрывает задержку между проверкой в шлюзе и сервером
+            LocalDateTime earliest = LocalDateTime.now().minus(PRESENT_TOLERANCE);
+            if (bookingDto.getStart().isBefore(earliest) || bookingDto.getEnd().isBefore(earliest)) {
+                throw new NotValidationException("Время старта или окончания бронирования уже прошло");
+            }
+            Booking booking = bookingIntervalIndex.reserve(item.getId(), item.getVersion(), bookingDto.getStart(),
+                    bookingDto.getEnd(), () -> bookingRepository.save(BookingMapper.toBooking(bookingDto, user, item)));
+            itemBookingPointers.added(item, booking, LocalDateTime.now());
+            log.info("Бронирование с id: {} создано", booking.getId());
+            return BookingMapper.toBookingDto(booking);
+        });
     }
 
     @Override
     public BookingDto removeBooking(Integer bookingId, Integer userId) {
-        Booking booking = bookingRepository.findById(bookingId).orElseThrow(() -> new NotFoundBookingException(""));
-        if (!userId.equals(booking.getBooker().getId())) {
-            throw new NotFoundUserException(String.format("Пользователь с id:%d не является владельцем бронирования с id: %d",
-                    userId, bookingId));
-        }
-        bookingRepository.delete(booking);
-        log.info("Бронирование с Id: {} удалено", bookingId);
-        return BookingMapper.toBookingDto(booking);
+        Integer itemId = bookingRepository.findItemIdById(bookingId).orElseThrow(() -> new NotFoundBookingException(""));
+        return writeForItem(itemId, item -> {
+            Booking booking = bookingRepository.findById(bookingId).orElseThrow(() -> new NotFoundBookingException(""));
+            if (!userId.equals(booking.getBooker().getId())) {
+                throw new NotFoundUserException(String.format("Пользователь с id:%d не является владельцем бронирования с id: %d",
+                        userId, bookingId));
+            }
+            bookingRepository.delete(booking);
+            bookingIntervalIndex.release(booking, item.getVersion());
+            itemBookingPointers.removed(item, booking, LocalDateTime.now());
+            log.info("Бронирование с Id: {} удалено", bookingId);
+            return BookingMapper.toBookingDto(booking);
+        });
     }
 
     @Override
@@ -82,101 +117,100 @@ public class BookingServiceImpl implements BookingService {
 
     @Override
     public BookingDto setApprove(Integer bookingId, Boolean approve, Integer userId) {
-        Booking booking = bookingRepository.findById(bookingId).orElseThrow(() ->
+        Integer itemId = bookingRepository.findItemIdById(bookingId).orElseThrow(() ->
                 new NotFoundBookingException(String.format("Бронирования с id: %d  не существует", bookingId)));
-        if (booking.getStatus().equals(Status.APPROVED)) {
-            throw new NotValidationException(String.format("Бронирование с id: %d уже имеет статус APPROVED", bookingId));
-        }
-        if (!booking.getItem().getOwner().getId().equals(userId)) {
-            throw new NotFoundItemException(String.format("Пользователь с id: %d  не является владельцем вещи с id: %d",
-                    userId, booking.getItem().getId()));
-        }
-        if (approve.equals(true)) {
-            booking.setStatus(Status.APPROVED);
-        } else {
-            booking.setStatus(Status.REJECTED);
-        }
-        bookingRepository.save(booking);
-        log.info("Статус для бронирования с id: {} изменен.", bookingId);
-        return BookingMapper.toBookingDto(booking);
+        return writeForItem(itemId, item -> {
+            Booking booking = bookingRepository.findById(bookingId).orElseThrow(() ->
+                    new NotFoundBookingException(String.format("Бронирования с id: %d  не существует", bookingId)));
+            if (booking.getStatus().equals(Status.APPROVED)) {
+                throw new NotValidationException(String.format("Бронирование с id: %d уже имеет статус APPROVED", bookingId));
+            }
+            if (!item.getOwner().getId().equals(userId)) {
+                throw new NotFoundItemException(String.format("Пользователь с id: %d  не является владельцем вещи с id: %d",
+                        userId, item.getId()));
+            }
+            if (approve.equals(true)) {
+                approve(booking, item);
+            } else {
+                booking.setStatus(Status.REJECTED);
+                bookingRepository.save(booking);
+                bookingIntervalIndex.release(booking, item.getVersion());
+                itemBookingPointers.removed(item, booking, LocalDateTime.now());
+            }
+            log.info("Статус для бронирования с id: {} изменен.", bookingId);
+            return BookingMapper.toBookingDto(booking);
+        });
     }
 
     @Override
     public List<BookingDto> getBookingByUser(RequestBooking requestBooking) {
-        Integer userId = requestBooking.getUserId();
-        String state = requestBooking.getState().toUpperCase();
-        validBooking(requestBooking);
-        PageRequest pageRequest = PageRequest.of(requestBooking.getFrom() / requestBooking.getSize(),
-                requestBooking.getSize());
-
-        LocalDateTime time = LocalDateTime.now();
-        List<Booking> bookings;
-        checkUser(userId);
-        switch (state) {
-            case "ALL":
-                bookings = bookingRepository.findAllByBookerIdOrderByEndDesc(userId, pageRequest);
-                break;
-            case "CURRENT":
-                bookings = bookingRepository.findAllByBookerIdAndStartIsBeforeAndEndIsAfterOrderByEndDesc(userId, time,
-                        time, pageRequest);
-                break;
-            case "PAST":
-                bookings = bookingRepository.findAllByBookerIdAndEndIsBeforeOrderByEndDesc(userId, time, pageRequest);
-                break;
-            case "FUTURE":
-                bookings = bookingRepository.findAllByBookerIdAndStartIsAfterOrderByEndDesc(userId, time, pageRequest);
-                break;
-            case "WAITING":
-                bookings = bookingRepository.findAllByBookerIdAndStartIsAfterAndStatusOrderByEndDesc(userId, time,
-                        Status.valueOf(state), pageRequest);
-                break;
-            case "REJECTED":
-                bookings = bookingRepository.findAllByBookerIdAndStatusOrderByEndDesc(userId, Status.valueOf(state),
-                        pageRequest);
-                break;
-            default:
-                throw new NotValidationException("Unknown state: " + state);
-        }
-
-        return BookingMapper.toBookingDtoList(bookings);
+        return searchBookings(BookingRole.BOOKER, requestBooking);
     }
 
     @Override
     public List<BookingDto> getBookingForOwner(RequestBooking requestBooking) {
-        Integer userId = requestBooking.getUserId();
-        String state = requestBooking.getState().toUpperCase();
+        return searchBookings(BookingRole.OWNER, requestBooking);
+    }
+
+    private List<BookingDto> searchBookings(BookingRole role, RequestBooking requestBooking) {
         validBooking(requestBooking);
-        PageRequest pageRequest = PageRequest.of(requestBooking.getFrom() / requestBooking.getSize(),
-                requestBooking.getSize());
-        LocalDateTime time = LocalDateTime.now();
-        checkUser(userId);
-        List<Booking> bookings;
-        switch (state) {
-            case "ALL":
-                bookings = bookingRepository.findBookingByUserId(userId, pageRequest);
-                break;
-            case "CURRENT":
-                bookings = bookingRepository.findAllByItemOwnerIdAndStartIsBeforeAndEndIsAfterOrderByEndDesc(userId,
-                        time, time, pageRequest);
-                break;
-            case "PAST":
-                bookings = bookingRepository.findAllByItemOwnerIdAndEndIsBeforeOrderByEndDesc(userId, time, pageRequest);
-                break;
-            case "FUTURE":
-                bookings = bookingRepository.findAllByItemOwnerIdAndStartIsAfterOrderByEndDesc(userId, time, pageRequest);
-                break;
-            case "WAITING":
-                bookings = bookingRepository.findAllByItemOwnerIdAndStartIsAfterAndStatusOrderByEndDesc(userId, time,
-                        Status.valueOf(state), pageRequest);
-                break;
-            case "REJECTED":
-                bookings = bookingRepository.findAllByItemOwnerIdAndStatusOrderByEndDesc(userId, Status.valueOf(state),
-                        pageRequest);
-                break;
-            default:
-                throw new NotValidationException("Unknown state: " + state);
+        checkUser(requestBooking.getUserId());
+        BookingSearch.BookingSearchBuilder search = BookingSearch.builder()
+                .role(role)
+                .state(BookingState.from(requestBooking.getState()))
+                .userId(requestBooking.getUserId())
+                .now(LocalDateTime.now());
+        if (requestBooking.getCursor() == null) {
+            search.page(PageRequest.of(requestBooking.getFrom() / requestBooking.getSize(), requestBooking.getSize()));
+        } else {
+            search.keyset(true)
+                    .page(PageRequest.of(0, requestBooking.getSize()))
+                    .after(BookingCursor.decode(requestBooking.getCursor()));
         }
-        return BookingMapper.toBookingDtoList(bookings);
+        return BookingMapper.toBookingDtoList(bookingRepository.search(search.build()));
+    }
+
+    private void approve(Booking booking, Item item) {
+        if (BookingIntervalIndex.BLOCKING_STATUSES.contains(booking.getStatus())) {
+            booking.setStatus(Status.APPROVED);
+            bookingRepository.save(booking);
+            bookingIntervalIndex.advance(item.getId(), item.getVersion());
+            return;
+        }
+        bookingIntervalIndex.reserve(item.getId(), item.getVersion(), booking.getStart(), booking.getEnd(), () -> {
+            booking.setStatus(Status.APPROVED);
+            bookingRepository.save(booking);
+            return booking;
+        });
+        itemBookingPointers.added(item, booking, LocalDateTime.now());
+    }
+
+    private <T> T writeForItem(Integer itemId, Function<Item, T> action) {
+        Lock lock = itemLocks.get(itemId);
+        lock.lock();
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    T result = transactionTemplate.execute(status -> action.apply(lockItem(itemId)));
+                    itemViewCache.invalidate(itemId);
+                    return result;
+                } catch (OptimisticLockingFailureException e) {
+                    bookingIntervalIndex.evict(itemId);
+                    if (attempt >= MAX_WRITE_ATTEMPTS) {
+                        throw new BookingConflictException(String.format("Не удалось изменить бронирования вещи с id: %d " +
+                                "из-за параллельных изменений, повторите запрос", itemId));
+                    }
+                    log.warn("Конфликт версий вещи с id: {}, попытка {} из {}", itemId, attempt, MAX_WRITE_ATTEMPTS);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Item lockItem(Integer itemId) {
+        return itemRepository.findForBookingById(itemId).orElseThrow(() ->
+                new NotFoundItemException(String.format("Вещи с id: %d не существует.", itemId)));
     }
 
     private void validBooking(RequestBooking requestBooking) {
@@ -0,0 +1,87 @@
+package ru.practicum.shareit.cache;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Фабрика регионов кэша второго уровня Hibernate на ограниченных по размеру картах в памяти процесса.
+ * Размер и время жизни записей региона задаются свойствами shareit.cache.{регион}.maximum-size
+ * и shareit.cache.{регион}.ttl, для регионов без своих свойств берутся shareit.cache.default.*.
+ * Регион меток обновления таблиц тоже ограничен (shareit.cache.timestamps.maximum-size), но его записи
+ * не устаревают по времени, а вытеснение метки сбрасывает кэши запросов: без метки нельзя проверить,
+ * не изменилась ли таблица после сохранения результата.
+ */
+public class BoundedRegionFactory extends RegionFactoryTemplate {
+    static final String PROPERTY_PREFIX = "shareit.cache.";
+    static final String MAXIMUM_SIZE_SUFFIX = ".maximum-size";
+    static final String TTL_SUFFIX = ".ttl";
+    private static final String TIMESTAMPS_REGION = "timestamps";
+    private static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+    private static final int DEFAULT_TIMESTAMPS_MAXIMUM_SIZE = 1_000;
+    private static final Duration DEFAULT_TTL = Duration.ofMinutes(10);
+    private static final Duration NO_TTL = Duration.ofNanos(Long.MAX_VALUE);
+
+    private final List<StorageAccess> queryResults = new CopyOnWriteArrayList<>();
+    private Map<?, ?> configValues = Map.of();
+
+    @Override
+    protected void prepareForUse(SessionFactoryOptions settings, Map configValues) {
+        this.configValues = configValues;
+    }
+
+    @Override
+    protected void releaseFromUse() {
+        queryResults.clear();
+    }
+
+    @Override
+    protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+                                                                    DomainDataRegionBuildingContext buildingContext) {
+        return new BoundedStorageAccess(maximumSize(regionConfig.getRegionName()), ttl(regionConfig.getRegionName()));
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(String regionName,
+                                                                  SessionFactoryImplementor sessionFactory) {
+        StorageAccess storage = new BoundedStorageAccess(maximumSize(regionName), ttl(regionName));
+        queryResults.add(storage);
+        return storage;
+    }
+
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(String regionName,
+                                                                SessionFactoryImplementor sessionFactory) {
+        Object size = configValues.get(PROPERTY_PREFIX + TIMESTAMPS_REGION + MAXIMUM_SIZE_SUFFIX);
+        return timestampsStorage(size == null ? DEFAULT_TIMESTAMPS_MAXIMUM_SIZE : Integer.parseInt(size.toString().trim()));
+    }
+
+    BoundedStorageAccess timestampsStorage(int maximumSize) {
+        return new BoundedStorageAccess(maximumSize, NO_TTL, () -> queryResults.forEach(StorageAccess::evictData));
+    }
+
+    int maximumSize(String regionName) {
+        Object size = property(regionName, MAXIMUM_SIZE_SUFFIX);
+        return size == null ? DEFAULT_MAXIMUM_SIZE : Integer.parseInt(size.toString().trim());
+    }
+
+    Duration ttl(String regionName) {
+        Object ttl = property(regionName, TTL_SUFFIX);
+        return ttl == null ? DEFAULT_TTL : DurationStyle.detectAndParse(ttl.toString().trim());
+    }
+
+    private Object property(String regionName, String suffix) {
+        Object value = configValues.get(PROPERTY_PREFIX + regionName + suffix);
+        return value != null ? value : configValues.get(PROPERTY_PREFIX + "default" + suffix);
+    }
+}
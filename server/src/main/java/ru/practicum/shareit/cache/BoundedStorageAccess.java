@@ -0,0 +1,94 @@
+package ru.practicum.shareit.cache;
+
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Хранилище одного региона кэша: при превышении maximumSize вытесняются давно не читавшиеся записи,
+ * а запись старше ttl считается отсутствующей. Чтение и запись идут без общей блокировки.
+ * Вытеснение делает LeastRecentlyReadEviction.
+ * Если задан onEviction, он вызывается после вытеснения: так регион меток обновления сбрасывает
+ * кэш запросов, которому без метки нельзя доверять.
+ */
+class BoundedStorageAccess implements DomainDataStorageAccess {
+    private final long ttlNanos;
+    private final Runnable onEviction;
+    private final ConcurrentMap<Object, Entry> entries = new ConcurrentHashMap<>();
+    private final LeastRecentlyReadEviction<Object, Entry> eviction;
+
+    BoundedStorageAccess(int maximumSize, Duration ttl) {
+        this(maximumSize, ttl, () -> {
+        });
+    }
+
+    BoundedStorageAccess(int maximumSize, Duration ttl, Runnable onEviction) {
+        this.eviction = new LeastRecentlyReadEviction<>(entries, maximumSize, entry -> entry.lastRead);
+        this.ttlNanos = ttl.toNanos();
+        this.onEviction = onEviction;
+    }
+
+    @Override
+    public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+        if (now - entry.createdAt > ttlNanos) {
+            entries.remove(key, entry);
+            return null;
+        }
+        entry.lastRead = now;
+        return entry.value;
+    }
+
+    @Override
+    public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+        entries.put(key, new Entry(value));
+        evictIfNeeded();
+    }
+
+    @Override
+    public boolean contains(Object key) {
+        return getFromCache(key, null) != null;
+    }
+
+    @Override
+    public void evictData() {
+        entries.clear();
+    }
+
+    @Override
+    public void evictData(Object key) {
+        entries.remove(key);
+    }
+
+    @Override
+    public void release() {
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void evictIfNeeded() {
+        if (eviction.evictIfNeeded() > 0) {
+            onEviction.run();
+        }
+    }
+
+    private static class Entry {
+        private final Object value;
+        private final long createdAt = System.nanoTime();
+        private volatile long lastRead = createdAt;
+
+        private Entry(Object value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package ru.practicum.shareit.cache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ToLongFunction;
+
+/**
+ * Вытеснение давно не читавшихся значений из карты, размер которой ограничен maximumSize.
+ * Вытеснение делает один поток за раз и освобождает сразу запас в 1/16 размера, чтобы обход карты
+ * не повторялся на каждой записи. Время последнего чтения значения отдает lastRead.
+ */
+public class LeastRecentlyReadEviction<K, V> {
+    private static final int EVICTION_SLACK_DIVISOR = 16;
+
+    private final ConcurrentMap<K, V> entries;
+    private final int maximumSize;
+    private final ToLongFunction<V> lastRead;
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    public LeastRecentlyReadEviction(ConcurrentMap<K, V> entries, int maximumSize, ToLongFunction<V> lastRead) {
+        this.entries = entries;
+        this.maximumSize = maximumSize;
+        this.lastRead = lastRead;
+    }
+
+    /**
+     * Возвращает число вытесненных значений. 0, если карта не переполнена или вытеснение уже идет в другом потоке.
+     */
+    public int evictIfNeeded() {
+        if (entries.size() <= maximumSize || !evicting.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            int excess = entries.size() - maximumSize + maximumSize / EVICTION_SLACK_DIVISOR;
+            if (excess <= 0) {
+                return 0;
+            }
+            // время чтения фиксируется заранее: во время сортировки его меняют параллельные чтения
+            List<Candidate<K, V>> candidates = new ArrayList<>(entries.size());
+            entries.forEach((key, value) -> candidates.add(new Candidate<>(key, value, lastRead.applyAsLong(value))));
+            candidates.sort(Comparator.comparingLong(candidate -> candidate.lastRead));
+            int evicted = 0;
+            for (Candidate<K, V> candidate : candidates.subList(0, Math.min(excess, candidates.size()))) {
+                if (entries.remove(candidate.key, candidate.value)) {
+                    evicted++;
+                }
+            }
+            return evicted;
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static class Candidate<K, V> {
+        private final K key;
+        private final V value;
+        private final long lastRead;
+
+        private Candidate(K key, V value, long lastRead) {
+            this.key = key;
+            this.value = value;
+            this.lastRead = lastRead;
+        }
+    }
+}
@@ -10,6 +10,7 @@ public class Constant {
     public static final String USER_ID_PATH = "/{user-id}";
     public static final String USER_ID = "user-id";
     public static final String HEADER_USER = "X-Sharer-User-Id";
+    public static final String HEADER_NEXT_CURSOR = "X-Next-Cursor";
 
 }
 
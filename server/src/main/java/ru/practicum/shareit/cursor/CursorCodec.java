@@ -0,0 +1,42 @@
+package ru.practicum.shareit.cursor;
+
+import ru.practicum.shareit.item.exception.NotValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.function.BiFunction;
+
+/**
+ * Кодирование непрозрачных курсоров постраничной выдачи: позиция последней отданной записи
+ * (время сортировки и id) в виде base64url-строки. Пустой курсор означает первую страницу.
+ */
+public final class CursorCodec {
+    private static final String SEPARATOR = "_";
+
+    private CursorCodec() {
+    }
+
+    public static String encode(LocalDateTime time, Integer id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((time + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Возвращает null для пустого курсора: выдача начинается с первой страницы.
+     */
+    public static <T> T decode(String cursor, BiFunction<LocalDateTime, Integer, T> factory) {
+        if (cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf(SEPARATOR);
+            return factory.apply(LocalDateTime.parse(value.substring(0, separator)),
+                    Integer.valueOf(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new NotValidationException(String.format("Некорректный курсор: %s", cursor));
+        }
+    }
+}
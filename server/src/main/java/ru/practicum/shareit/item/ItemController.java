@@ -1,14 +1,27 @@
 package ru.practicum.shareit.item;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemBookDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemExportDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
 import ru.practicum.shareit.item.model.RequestItem;
+import ru.practicum.shareit.item.model.SearchSort;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.service.UserService;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 import static ru.practicum.shareit.constant.Constant.*;
@@ -20,6 +33,8 @@ import static ru.practicum.shareit.constant.Constant.*;
 public class ItemController {
 
     private final ItemService itemService;
+    private final UserService userService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public ItemDto itemCreate(@RequestHeader(HEADER_USER) Integer ownerId,
@@ -28,6 +43,13 @@ public class ItemController {
         return itemService.createItem(ownerId, itemDto);
     }
 
+    @PostMapping("/bulk")
+    public List<ItemImportResultDto> importItems(@RequestHeader(HEADER_USER) Integer ownerId,
+                                                 @RequestBody List<ItemDto> itemDtos) {
+        log.info("Поступил запрос на импорт {} вещей пользователя с id= {}", itemDtos.size(), ownerId);
+        return itemService.importItems(ownerId, itemDtos);
+    }
+
     @PatchMapping(ITEM_ID_PATH)
     public ItemDto updateItem(@RequestHeader(HEADER_USER) Integer ownerId,
                               @RequestBody ItemDto itemDto,
@@ -52,6 +74,32 @@ public class ItemController {
         return items;
     }
 
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportItems(@RequestHeader(HEADER_USER) Integer ownerId) {
+        log.info("Поступил запрос на выгрузку вещей пользователя с id= {}", ownerId);
+        // владельца проверяем до начала потока: после него ответ уже нельзя заменить на 404
+        userService.getUserById(ownerId);
+        // без сброса после каждой строки: данные уходят клиенту по мере заполнения буфера ответа
+        ObjectWriter writer = objectMapper.writerFor(ItemExportDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("");
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = writer.createGenerator(out)) {
+                itemService.exportItems(ownerId, item -> writeLine(writer, generator, item));
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    private void writeLine(ObjectWriter writer, JsonGenerator generator, ItemExportDto item) {
+        try {
+            writer.writeValue(generator, item);
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     @DeleteMapping(ITEM_ID_PATH)
     public ItemDto deleteItem(@PathVariable(ITEM_ID) Integer itemId,
                               @RequestHeader(HEADER_USER) Integer userId) {
@@ -62,8 +110,30 @@ public class ItemController {
     public List<ItemDto> searchItem(@RequestHeader(HEADER_USER) Integer ownerId,
                                     @RequestParam("text") String text,
                                     @RequestParam(defaultValue = "0") int from,
-                                    @RequestParam(defaultValue = "10") int size) {
-        return itemService.search(RequestItem.of(ownerId, from, size, text));
+                                    @RequestParam(defaultValue = "10") int size,
+                                    @RequestParam(defaultValue = "id") String sort) {
+        return itemService.search(RequestItem.of(ownerId, from, size, text, SearchSort.from(sort)));
+    }
+
+    @GetMapping("/suggest")
+    public List<String> suggest(@RequestHeader(HEADER_USER) Integer userId,
+                                @RequestParam("prefix") String prefix,
+                                @RequestParam(defaultValue = "10") int size) {
+        return itemService.suggest(prefix, size);
+    }
+
+    @GetMapping("/{item-id}/comments")
+    public ResponseEntity<List<CommentDto>> getComments(@RequestHeader(HEADER_USER) Integer userId,
+                                                        @PathVariable("item-id") Integer itemId,
+                                                        @RequestParam(required = false) Integer cursor,
+                                                        @RequestParam(defaultValue = "10") int size) {
+        List<CommentDto> comments = itemService.getComments(itemId, cursor, size);
+        if (comments.size() < size) {
+            return ResponseEntity.ok(comments);
+        }
+        return ResponseEntity.ok()
+                .header(HEADER_NEXT_CURSOR, String.valueOf(comments.get(comments.size() - 1).getId()))
+                .body(comments);
     }
 
     @PostMapping("/{item-id}/comment")
@@ -0,0 +1,153 @@
+package ru.practicum.shareit.item.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.cache.LeastRecentlyReadEviction;
+import ru.practicum.shareit.item.dto.ItemBookDto;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Кэш собранных ItemBookDto для GET /items/{id}. На каждую вещь хранится два представления: для владельца
+ * (с последним и ближайшим бронированием) и для остальных пользователей. Размер ограничен, самые давно
+ * прочитанные вещи вытесняются первыми, каждое представление живет не дольше ttl, а представление владельца
+ * к тому же устаревает в момент начала ближайшего бронирования.
+ * Записи вещей, комментариев и бронирований сбрасывают кэш вещи после фиксации транзакции. Если сброс
+ * произошел, пока представление собиралось из БД, собранное значение в кэш не попадает.
+ * Сброс действует только на узле, который сделал запись: другие узлы и правки прямо в БД кэш не видит,
+ * поэтому там представление отстает не дольше shareit.item-cache.ttl.
+ * Чтение идет без блокировок, запись блокирует только ключ вещи. Сбросы считаются по полосам id,
+ * поэтому сброс одной вещи отменяет только загрузки вещей из той же полосы, а не все загрузки сразу.
+ * Вытеснение делает LeastRecentlyReadEviction.
+ */
+@Component
+public class ItemViewCache {
+    private static final String CACHE_NAME = "itemView";
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final Duration ttl;
+    private final Clock clock;
+    private final ConcurrentMap<Integer, Views> views = new ConcurrentHashMap<>();
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final LeastRecentlyReadEviction<Integer, Views> eviction;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    @Autowired
+    public ItemViewCache(MeterRegistry meterRegistry,
+                         @Value("${shareit.item-cache.maximum-size:10000}") int maximumSize,
+                         @Value("${shareit.item-cache.ttl:5m}") Duration ttl) {
+        this(meterRegistry, maximumSize, ttl, Clock.systemDefaultZone());
+    }
+
+    ItemViewCache(MeterRegistry meterRegistry, int maximumSize, Duration ttl, Clock clock) {
+        this.eviction = new LeastRecentlyReadEviction<>(views, maximumSize, itemViews -> itemViews.lastRead);
+        this.ttl = ttl;
+        this.clock = clock;
+        this.hits = Counter.builder("cache.gets").tag("cache", CACHE_NAME).tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("cache.gets").tag("cache", CACHE_NAME).tag("result", "miss")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("cache.evictions").tag("cache", CACHE_NAME)
+                .register(meterRegistry);
+        Gauge.builder("cache.size", this, ItemViewCache::size).tag("cache", CACHE_NAME)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Возвращает представление вещи для пользователя userId, при промахе собирает его через loader.
+     */
+    public ItemBookDto get(Integer itemId, Integer userId, Supplier<ItemBookDto> loader) {
+        Views itemViews = views.get(itemId);
+        if (itemViews != null) {
+            ItemBookDto view = itemViews.get(userId, LocalDateTime.now(clock));
+            if (view != null) {
+                itemViews.lastRead = System.nanoTime();
+                hits.increment();
+                return view;
+            }
+        }
+        int stripe = stripe(itemId);
+        long generation = generations.get(stripe);
+        misses.increment();
+        ItemBookDto view = loader.get();
+        views.compute(itemId, (id, existing) -> {
+            if (generations.get(stripe) != generation) {
+                return existing;
+            }
+            Views base = existing != null ? existing : new Views(view.getOwner().getId(), null, null, null, null);
+            return base.with(userId, view, expiresAt(view));
+        });
+        evictions.increment(eviction.evictIfNeeded());
+        return view;
+    }
+
+    public void invalidate(Integer itemId) {
+        // поколение растет до удаления: загрузка, начатая раньше, не вернет устаревшее значение в кэш
+        generations.incrementAndGet(stripe(itemId));
+        views.remove(itemId);
+    }
+
+    public int size() {
+        return views.size();
+    }
+
+    private static int stripe(Integer itemId) {
+        return Math.floorMod(itemId.hashCode(), GENERATION_STRIPES);
+    }
+
+    private LocalDateTime expiresAt(ItemBookDto view) {
+        LocalDateTime expiresAt = LocalDateTime.now(clock).plus(ttl);
+        if (view.getNextBooking() != null && view.getNextBooking().getStart().isBefore(expiresAt)) {
+            return view.getNextBooking().getStart();
+        }
+        return expiresAt;
+    }
+
+    /**
+     * Представления одной вещи. Не меняются после создания: новое представление дает новый объект,
+     * поэтому читатели без блокировки всегда видят согласованную пару значения и срока.
+     */
+    private static class Views {
+        private final Integer ownerId;
+        private final ItemBookDto ownerView;
+        private final LocalDateTime ownerViewExpiresAt;
+        private final ItemBookDto publicView;
+        private final LocalDateTime publicViewExpiresAt;
+        private volatile long lastRead = System.nanoTime();
+
+        private Views(Integer ownerId, ItemBookDto ownerView, LocalDateTime ownerViewExpiresAt,
+                      ItemBookDto publicView, LocalDateTime publicViewExpiresAt) {
+            this.ownerId = ownerId;
+            this.ownerView = ownerView;
+            this.ownerViewExpiresAt = ownerViewExpiresAt;
+            this.publicView = publicView;
+            this.publicViewExpiresAt = publicViewExpiresAt;
+        }
+
+        private ItemBookDto get(Integer userId, LocalDateTime now) {
+            if (ownerId.equals(userId)) {
+                return ownerView != null && now.isBefore(ownerViewExpiresAt) ? ownerView : null;
+            }
+            return publicView != null && now.isBefore(publicViewExpiresAt) ? publicView : null;
+        }
+
+        private Views with(Integer userId, ItemBookDto view, LocalDateTime expiresAt) {
+            if (ownerId.equals(userId)) {
+                return new Views(ownerId, view, expiresAt, publicView, publicViewExpiresAt);
+            }
+            return new Views(ownerId, ownerView, ownerViewExpiresAt, view, expiresAt);
+        }
+    }
+}
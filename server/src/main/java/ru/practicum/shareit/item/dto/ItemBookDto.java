@@ -21,6 +21,7 @@ public class ItemBookDto {
     BookingDto lastBooking;
     BookingDto nextBooking;
     List<CommentDto> comments;
+    ItemRatingDto rating;
     private Integer requestId;
 
     public ItemBookDto(Integer id, String name, UserDto user, String description, Boolean available) {
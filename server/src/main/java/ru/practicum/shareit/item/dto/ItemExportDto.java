@@ -0,0 +1,22 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import ru.practicum.shareit.booking.dto.BookingDto;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ItemExportDto {
+    Integer id;
+    String name;
+    String description;
+    Boolean available;
+    Integer requestId;
+    List<BookingDto> bookings;
+    List<CommentDto> comments;
+}
@@ -0,0 +1,29 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Результат импорта одной строки: row — номер вещи в переданном списке, id — id созданной вещи
+ * или error — причина, по которой вещь не создана.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ItemImportResultDto {
+    Integer row;
+    Integer id;
+    String error;
+
+    public static ItemImportResultDto created(int row, Integer id) {
+        return new ItemImportResultDto(row, id, null);
+    }
+
+    public static ItemImportResultDto failed(int row, String error) {
+        return new ItemImportResultDto(row, null, error);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.practicum.shareit.item.exception;
+
+public class ItemConflictException extends RuntimeException {
+    public ItemConflictException(String message) {
+        super(message);
+    }
+}
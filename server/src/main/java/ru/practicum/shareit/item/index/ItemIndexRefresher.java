@@ -0,0 +1,50 @@
+package ru.practicum.shareit.item.index;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.List;
+
+/**
+ * Перестраивает поисковый индекс и подсказки из БД при старте. Дальше индексы ведет сервис вещей
+ * при каждой записи на этом узле. Изменения с других узлов и прямые правки БД приходят с полной
+ * перестройкой по shareit.item-index.refresh-cron. Она читает все вещи, поэтому по умолчанию идет
+ * раз в сутки ночью. Если нужна более свежая картина, расписание задается чаще, а "-" выключает его.
+ * Вещи читаются одним проходом по id пачками и раздаются обоим индексам.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemIndexRefresher {
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private final ItemRepository itemRepository;
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemNameSuggester itemNameSuggester;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${shareit.item-index.refresh-cron:0 0 4 * * *}")
+    public synchronized void refresh() {
+        ItemSearchIndex.Rebuild searchRebuild = itemSearchIndex.startRebuild();
+        ItemNameSuggester.Rebuild suggestRebuild = itemNameSuggester.startRebuild();
+        int lastId = 0;
+        List<Item> batch;
+        do {
+            batch = itemRepository.findAllByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            for (Item item : batch) {
+                searchRebuild.add(item);
+                suggestRebuild.add(item);
+                lastId = item.getId();
+            }
+        } while (batch.size() == LOAD_BATCH_SIZE);
+        searchRebuild.publish();
+        suggestRebuild.publish();
+    }
+}
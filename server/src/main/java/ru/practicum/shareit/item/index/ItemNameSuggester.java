@@ -0,0 +1,182 @@
+package ru.practicum.shareit.item.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Подсказки названий вещей для ввода с автодополнением. Для каждой доступной вещи в отсортированной
+ * карте хранятся все «хвосты» ее названия, начинающиеся с границы слова, поэтому «дре» находит
+ * и «Дрель», и «Ударная дрель». Подсказка — это обход подкарты по префиксу до первых N разных названий,
+ * то есть O(log n + N) независимо от числа вещей. Названия, отличающиеся только регистром, считаются одним.
+ * Как и ItemSearchIndex, карта сразу видит записи этого узла, а остальные изменения получает
+ * при перестройке из ItemIndexRefresher.
+ */
+@Slf4j
+@Component
+public class ItemNameSuggester {
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Suffixes suffixes = new Suffixes();
+    private Map<Integer, Item> writesDuringRebuild;
+
+    /**
+     * Начинает перестройку так же, как ItemSearchIndex.startRebuild.
+     */
+    public Rebuild startRebuild() {
+        lock.writeLock().lock();
+        try {
+            writesDuringRebuild = new LinkedHashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return new Rebuild();
+    }
+
+    public void put(Item item) {
+        lock.writeLock().lock();
+        try {
+            suffixes.put(item);
+            if (writesDuringRebuild != null) {
+                writesDuringRebuild.put(item.getId(), item);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Integer itemId) {
+        lock.writeLock().lock();
+        try {
+            suffixes.remove(itemId);
+            if (writesDuringRebuild != null) {
+                writesDuringRebuild.put(itemId, null);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Возвращает до limit разных названий доступных вещей, в которых есть слово, начинающееся с prefix.
+     */
+    public List<String> suggest(String prefix, int limit) {
+        List<String> terms = ItemSearchIndex.tokenize(prefix);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        String key = String.join(" ", terms);
+        Set<String> seen = new HashSet<>();
+        List<String> names = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Map<String, Set<Integer>> candidates : suffixes.keys.subMap(key, key + Character.MAX_VALUE).values()) {
+                for (String name : candidates.keySet()) {
+                    if (seen.add(name.toLowerCase(Locale.ROOT))) {
+                        names.add(name);
+                        if (names.size() == limit) {
+                            return names;
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return names;
+    }
+
+    /**
+     * Перестройка подсказок, начатая startRebuild. Новые подсказки становятся видимыми только в publish.
+     */
+    public class Rebuild {
+        private final Suffixes next = new Suffixes();
+
+        private Rebuild() {
+        }
+
+        public void add(Item item) {
+            next.put(item);
+        }
+
+        public void publish() {
+            lock.writeLock().lock();
+            try {
+                if (writesDuringRebuild != null) {
+                    writesDuringRebuild.forEach((itemId, item) -> {
+                        if (item == null) {
+                            next.remove(itemId);
+                        } else {
+                            next.put(item);
+                        }
+                    });
+                    writesDuringRebuild = null;
+                }
+                suffixes = next;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.debug("Подсказки названий вещей перестроены, вещей в подсказках: {}", next.entries.size());
+        }
+    }
+
+    private static class Suffixes {
+        private final NavigableMap<String, Map<String, Set<Integer>>> keys = new TreeMap<>();
+        private final Map<Integer, Entry> entries = new HashMap<>();
+
+        private void put(Item item) {
+            remove(item.getId());
+            List<String> terms = ItemSearchIndex.tokenize(item.getName());
+            if (!Boolean.TRUE.equals(item.getAvailable()) || terms.isEmpty()) {
+                return;
+            }
+            List<String> itemKeys = new ArrayList<>();
+            for (int i = 0; i < terms.size(); i++) {
+                String key = String.join(" ", terms.subList(i, terms.size()));
+                keys.computeIfAbsent(key, k -> new TreeMap<>(String.CASE_INSENSITIVE_ORDER))
+                        .computeIfAbsent(item.getName().trim(), name -> new HashSet<>())
+                        .add(item.getId());
+                itemKeys.add(key);
+            }
+            entries.put(item.getId(), new Entry(item.getName().trim(), itemKeys));
+        }
+
+        private void remove(Integer itemId) {
+            Entry entry = entries.remove(itemId);
+            if (entry == null) {
+                return;
+            }
+            for (String key : entry.keys) {
+                keys.computeIfPresent(key, (k, names) -> {
+                    names.computeIfPresent(entry.name, (name, ids) -> {
+                        ids.remove(itemId);
+                        return ids.isEmpty() ? null : ids;
+                    });
+                    return names.isEmpty() ? null : names;
+                });
+            }
+        }
+    }
+
+    private static class Entry {
+        private final String name;
+        private final List<String> keys;
+
+        private Entry(String name, List<String> keys) {
+            this.name = name;
+            this.keys = keys;
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package ru.practicum.shareit.item.index;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Инвертированный индекс по названию и описанию вещей для поиска /items/search.
+ * Текст приводится к нижнему регистру и режется на слова по всем символам, кроме букв и цифр,
+ * поэтому русский и английский текст обрабатываются одинаково. Слова лежат в отсортированной карте,
+ * и поиск по префиксу сводится к обходу подкарты. Вещь найдена, если каждое слово запроса
+ * является началом какого-то слова в ее названии или описании.
+ * В режиме релевантности найденные вещи ранжируются по BM25F: совпадения в названии весят больше,
+ * чем в описании, а в памяти держится только куча из from + size лучших результатов.
+ * Записи этого узла попадают в индекс сразу, а изменения с других узлов и прямые правки БД —
+ * при перестройке из ItemIndexRefresher по shareit.item-index.refresh-cron (по умолчанию раз в сутки).
+ * Поиск идет под блокировкой чтения, поэтому не видит вещь в середине замены.
+ */
+@Slf4j
+@Component
+public class ItemSearchIndex {
+    private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double NAME_BOOST = 3.0;
+    private static final Comparator<ScoredItem> BY_RELEVANCE = Comparator.comparingDouble(ScoredItem::getScore)
+            .reversed()
+            .thenComparing(ScoredItem::getItemId);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Postings postings = new Postings();
+    private Map<Integer, Item> writesDuringRebuild;
+
+    /**
+     * Начинает перестройку: вещи добавляются в новый индекс без блокировки, а текущий продолжает отвечать.
+     * Записи этого узла, сделанные до публикации, запоминаются и накладываются на новый индекс,
+     * чтобы не потерять то, чего еще не было в прочитанной из БД выборке.
+     */
+    public Rebuild startRebuild() {
+        lock.writeLock().lock();
+        try {
+            writesDuringRebuild = new LinkedHashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return new Rebuild();
+    }
+
+    public void put(Item item) {
+        lock.writeLock().lock();
+        try {
+            postings.put(item);
+            if (writesDuringRebuild != null) {
+                writesDuringRebuild.put(item.getId(), item);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Integer itemId) {
+        lock.writeLock().lock();
+        try {
+            postings.remove(itemId);
+            if (writesDuringRebuild != null) {
+                writesDuringRebuild.put(itemId, null);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Возвращает id доступных для бронирования вещей, подходящих под запрос, по возрастанию id.
+     */
+    public List<Integer> search(String text, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            return match(lookup(text).values()).stream()
+                    .filter(postings::isAvailable)
+                    .sorted()
+                    .skip(offset)
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Возвращает id доступных для бронирования вещей, подходящих под запрос, от самых релевантных к менее
+     * релевантным. При равной оценке первой идет вещь с меньшим id.
+     */
+    public List<Integer> searchByRelevance(String text, long offset, int limit) {
+        int topSize = (int) Math.min(offset + limit, Integer.MAX_VALUE);
+        if (topSize <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            return rank(lookup(text), offset, topSize);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Integer> rank(Map<String, Set<Integer>> hits, long offset, int topSize) {
+        int total = postings.documents.size();
+        double averageNameLength = (double) postings.nameLengthTotal / Math.max(total, 1);
+        double averageDescriptionLength = (double) postings.descriptionLengthTotal / Math.max(total, 1);
+        PriorityQueue<ScoredItem> top = new PriorityQueue<>(BY_RELEVANCE.reversed());
+        for (Integer itemId : match(hits.values())) {
+            Document document = postings.documents.get(itemId);
+            if (document == null || !document.available) {
+                continue;
+            }
+            double score = 0;
+            for (Map.Entry<String, Set<Integer>> hit : hits.entrySet()) {
+                double frequency = NAME_BOOST * normalize(count(document.nameTerms, hit.getKey()),
+                        document.nameTerms.size(), averageNameLength)
+                        + normalize(count(document.descriptionTerms, hit.getKey()),
+                        document.descriptionTerms.size(), averageDescriptionLength);
+                double documentFrequency = hit.getValue().size();
+                double idf = Math.log(1 + (total - documentFrequency + 0.5) / (documentFrequency + 0.5));
+                score += idf * frequency * (K1 + 1) / (frequency + K1);
+            }
+            ScoredItem candidate = new ScoredItem(itemId, score);
+            if (top.size() < topSize) {
+                top.add(candidate);
+            } else if (BY_RELEVANCE.compare(candidate, top.peek()) < 0) {
+                top.poll();
+                top.add(candidate);
+            }
+        }
+        List<ScoredItem> ranked = new ArrayList<>(top);
+        ranked.sort(BY_RELEVANCE);
+        return ranked.stream()
+                .skip(offset)
+                .map(ScoredItem::getItemId)
+                .collect(Collectors.toList());
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(SEPARATOR.split(text.toLowerCase(Locale.ROOT)))
+                .filter(term -> !term.isEmpty())
+                .map(term -> term.replace('ё', 'е'))
+                .collect(Collectors.toList());
+    }
+
+    private Map<String, Set<Integer>> lookup(String text) {
+        Map<String, Set<Integer>> hits = new LinkedHashMap<>();
+        for (String prefix : tokenize(text)) {
+            if (!hits.containsKey(prefix)) {
+                Set<Integer> ids = new HashSet<>();
+                postings.terms.subMap(prefix, prefix + Character.MAX_VALUE).values().forEach(ids::addAll);
+                hits.put(prefix, ids);
+            }
+        }
+        return hits;
+    }
+
+    private static Set<Integer> match(Collection<Set<Integer>> hits) {
+        Set<Integer> matched = null;
+        for (Set<Integer> ids : hits) {
+            if (matched == null) {
+                matched = new HashSet<>(ids);
+            } else {
+                matched.retainAll(ids);
+            }
+            if (matched.isEmpty()) {
+                break;
+            }
+        }
+        return matched == null ? Set.of() : matched;
+    }
+
+    private static int count(List<String> terms, String prefix) {
+        int count = 0;
+        for (String term : terms) {
+            if (term.startsWith(prefix)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static double normalize(int frequency, int length, double averageLength) {
+        if (frequency == 0) {
+            return 0;
+        }
+        return frequency / (1 - B + B * length / averageLength);
+    }
+
+    /**
+     * Перестройка индекса, начатая startRebuild. Новый индекс становится видимым только в publish.
+     */
+    public class Rebuild {
+        private final Postings next = new Postings();
+
+        private Rebuild() {
+        }
+
+        public void add(Item item) {
+            next.put(item);
+        }
+
+        public void publish() {
+            lock.writeLock().lock();
+            try {
+                if (writesDuringRebuild != null) {
+                    writesDuringRebuild.forEach((itemId, item) -> {
+                        if (item == null) {
+                            next.remove(itemId);
+                        } else {
+                            next.put(item);
+                        }
+                    });
+                    writesDuringRebuild = null;
+                }
+                postings = next;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.debug("Поисковый индекс вещей перестроен, проиндексировано вещей: {}", next.documents.size());
+        }
+    }
+
+    private static class Postings {
+        private final NavigableMap<String, Set<Integer>> terms = new TreeMap<>();
+        private final Map<Integer, Document> documents = new HashMap<>();
+        private long nameLengthTotal;
+        private long descriptionLengthTotal;
+
+        private void put(Item item) {
+            remove(item.getId());
+            Document document = new Document(Boolean.TRUE.equals(item.getAvailable()), tokenize(item.getName()),
+                    tokenize(item.getDescription()));
+            for (String term : document.terms()) {
+                terms.computeIfAbsent(term, key -> new HashSet<>()).add(item.getId());
+            }
+            nameLengthTotal += document.nameTerms.size();
+            descriptionLengthTotal += document.descriptionTerms.size();
+            documents.put(item.getId(), document);
+        }
+
+        private void remove(Integer itemId) {
+            Document document = documents.remove(itemId);
+            if (document == null) {
+                return;
+            }
+            for (String term : document.terms()) {
+                terms.computeIfPresent(term, (key, ids) -> {
+                    ids.remove(itemId);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+            nameLengthTotal -= document.nameTerms.size();
+            descriptionLengthTotal -= document.descriptionTerms.size();
+        }
+
+        private boolean isAvailable(Integer itemId) {
+            Document document = documents.get(itemId);
+            return document != null && document.available;
+        }
+    }
+
+    private static class Document {
+        private final boolean available;
+        private final List<String> nameTerms;
+        private final List<String> descriptionTerms;
+
+        private Document(boolean available, List<String> nameTerms, List<String> descriptionTerms) {
+            this.available = available;
+            this.nameTerms = nameTerms;
+            this.descriptionTerms = descriptionTerms;
+        }
+
+        private Set<String> terms() {
+            Set<String> terms = new HashSet<>(nameTerms);
+            terms.addAll(descriptionTerms);
+            return terms;
+        }
+    }
+
+    @Value
+    private static class ScoredItem {
+        Integer itemId;
+        double score;
+    }
+}
@@ -2,9 +2,11 @@ package ru.practicum.shareit.item.mapper;
 
 import lombok.experimental.UtilityClass;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
 
 import java.util.ArrayList;
@@ -13,15 +15,17 @@ import java.util.List;
 @UtilityClass
 public class CommentMapper {
     public static CommentDto toCommentDto(Comment comment) {
+        UserDto author = UserMapper.toUserDto(comment.getAuthor());
+        ItemDto item = ItemMapper.toItemDto(comment.getItem());
         return new CommentDto(comment.getId(),
-                UserMapper.toUserDto(comment.getAuthor()),
-                UserMapper.toUserDto(comment.getAuthor()).getName(),
-                UserMapper.toUserDto(comment.getAuthor()).getId(),
+                author,
+                author.getName(),
+                author.getId(),
                 comment.getRating(),
                 comment.getText(),
                 comment.getTimeOfCreation(),
-                ItemMapper.toItemDto(comment.getItem()),
-                ItemMapper.toItemDto(comment.getItem()).getId());
+                item,
+                item.getId());
     }
 
     public static Comment toComment(CommentDto commentDto, User user, Item item) {
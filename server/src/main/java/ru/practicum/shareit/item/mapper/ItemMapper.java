@@ -1,8 +1,13 @@
 package ru.practicum.shareit.item.mapper;
 
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemBookDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemExportDto;
+import ru.practicum.shareit.item.dto.ItemRatingDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemRating;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.mapper.UserMapper;
 
@@ -32,6 +37,29 @@ public class ItemMapper {
                 .build();
     }
 
+    public static ItemExportDto toItemExportDto(Item item, List<BookingDto> bookings, List<CommentDto> comments) {
+        return ItemExportDto.builder()
+                .id(item.getId())
+                .name(item.getName())
+                .description(item.getDescription())
+                .available(item.getAvailable())
+                .requestId(item.getRequestId())
+                .bookings(bookings)
+                .comments(comments)
+                .build();
+    }
+
+    public static ItemRatingDto toItemRatingDto(ItemRating rating) {
+        return ItemRatingDto.builder()
+                .count(rating.getCount())
+                .sum(rating.getSum())
+                .average(rating.getCount() == 0 ? 0 : (double) rating.getSum() / rating.getCount())
+                // i-й элемент - число оценок i + 1
+                .histogram(List.of(rating.getOneStar(), rating.getTwoStars(), rating.getThreeStars(),
+                        rating.getFourStars(), rating.getFiveStars()))
+                .build();
+    }
+
     public static Item toItem(ItemBookDto itemDto, User user) {
         return Item.builder()
                 .id(itemDto.getId())
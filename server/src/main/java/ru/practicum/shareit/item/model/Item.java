@@ -3,6 +3,10 @@ package ru.practicum.shareit.item.model;
 
 import lombok.*;
 import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.OptimisticLock;
+import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.user.User;
 
 import javax.persistence.*;
@@ -15,9 +19,12 @@ import javax.persistence.*;
 @Builder
 @Entity
 @Table(name = "items")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "item")
 public class Item {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "items_seq")
+    @SequenceGenerator(name = "items_seq", sequenceName = "items_seq", allocationSize = 50)
     Integer id;
 
     @Column
@@ -33,4 +40,16 @@ public class Item {
     User owner;
     @Column(name = "request_id")
     Integer requestId;
+    @Version
+    Integer version;
+    @ToString.Exclude
+    @OptimisticLock(excluded = true)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "last_booking_id")
+    Booking lastBooking;
+    @ToString.Exclude
+    @OptimisticLock(excluded = true)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "next_booking_id")
+    Booking nextBooking;
 }
\ No newline at end of file
@@ -0,0 +1,64 @@
+package ru.practicum.shareit.item.model;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Сводка оценок вещи: число оценок, их сумма и число оценок каждого значения от 1 до 5.
+ * Обновляется при каждом отзыве с оценкой, поэтому чтение не пересчитывает отзывы.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Table(name = "item_ratings")
+public class ItemRating {
+    public static final int MAX_RATING = 5;
+
+    @Id
+    @Column(name = "item_id")
+    Integer itemId;
+
+    @Column(name = "rating_count")
+    long count;
+
+    @Column(name = "rating_sum")
+    long sum;
+
+    @Column(name = "one_star")
+    long oneStar;
+
+    @Column(name = "two_stars")
+    long twoStars;
+
+    @Column(name = "three_stars")
+    long threeStars;
+
+    @Column(name = "four_stars")
+    long fourStars;
+
+    @Column(name = "five_stars")
+    long fiveStars;
+
+    public static ItemRating empty(Integer itemId) {
+        return new ItemRating(itemId, 0, 0, 0, 0, 0, 0, 0);
+    }
+
+    public static ItemRating first(Integer itemId, int rating) {
+        return new ItemRating(itemId, 1, rating,
+                rating == 1 ? 1 : 0,
+                rating == 2 ? 1 : 0,
+                rating == 3 ? 1 : 0,
+                rating == 4 ? 1 : 0,
+                rating == 5 ? 1 : 0);
+    }
+}
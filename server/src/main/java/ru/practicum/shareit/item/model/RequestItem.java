@@ -14,6 +14,7 @@ public class RequestItem {
     int from;
     int size;
     String text;
+    SearchSort sort = SearchSort.ID;
 
     public static RequestItem of(Integer userId, int from, int size) {
         RequestItem item = new RequestItem();
@@ -33,4 +34,11 @@ public class RequestItem {
 
         return item;
     }
+
+    public static RequestItem of(Integer userId, int from, int size, String text, SearchSort sort) {
+        RequestItem item = of(userId, from, size, text);
+        item.setSort(sort);
+
+        return item;
+    }
 }
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.item.model;
+
+import ru.practicum.shareit.item.exception.NotValidationException;
+
+public enum SearchSort {
+    ID, // по возрастанию id вещи
+    RELEVANCE; // по релевантности BM25
+
+    public static SearchSort from(String sort) {
+        for (SearchSort value : values()) {
+            if (value.name().equalsIgnoreCase(sort)) {
+                return value;
+            }
+        }
+        throw new NotValidationException("Unknown sort: " + sort.toUpperCase());
+    }
+}
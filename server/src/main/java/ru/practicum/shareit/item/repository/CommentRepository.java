@@ -1,18 +1,40 @@
 package ru.practicum.shareit.item.repository;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Integer> {
+    @EntityGraph(attributePaths = {"author", "item", "item.owner"})
     List<Comment> findAllByItemId(Integer itemId);
 
     @Query("select c " +
             "from Comment as c " +
-            "join c.item as i " +
+            "join fetch c.item as i " +
+            "join fetch i.owner " +
+            "join fetch c.author " +
             "where i in ?1")
     List<Comment> findAllByItems(List<Item> items);
+
+    @EntityGraph(attributePaths = {"author", "item", "item.owner"})
+    List<Comment> findAllByItemIdAndIdLessThanOrderByIdDesc(Integer itemId, Integer id, Pageable pageable);
+
+    /**
+     * id последних limit отзывов каждой из вещей одним запросом.
+     */
+    @Query(value = "select ranked.id from (" +
+            "select c.id, row_number() over (partition by c.item_id order by c.id desc) as comment_rank " +
+            "from comments as c " +
+            "where c.item_id in ?1) as ranked " +
+            "where ranked.comment_rank <= ?2", nativeQuery = true)
+    List<Integer> findLatestIds(Collection<Integer> itemIds, int limit);
+
+    @EntityGraph(attributePaths = {"author", "item", "item.owner"})
+    List<Comment> findAllByIdInOrderByIdDesc(Collection<Integer> ids);
 }
@@ -0,0 +1,22 @@
+package ru.practicum.shareit.item.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.item.model.ItemRating;
+
+public interface ItemRatingRepository extends JpaRepository<ItemRating, Integer> {
+    /**
+     * Добавляет оценку к сводке одним update, без чтения строки, поэтому параллельные отзывы
+     * не теряют друг друга. Возвращает 0, если у вещи еще нет сводки.
+     */
+    @Modifying
+    @Query("update ItemRating r set r.count = r.count + 1, r.sum = r.sum + ?2, " +
+            "r.oneStar = r.oneStar + case when ?2 = 1 then 1 else 0 end, " +
+            "r.twoStars = r.twoStars + case when ?2 = 2 then 1 else 0 end, " +
+            "r.threeStars = r.threeStars + case when ?2 = 3 then 1 else 0 end, " +
+            "r.fourStars = r.fourStars + case when ?2 = 4 then 1 else 0 end, " +
+            "r.fiveStars = r.fiveStars + case when ?2 = 5 then 1 else 0 end " +
+            "where r.itemId = ?1")
+    int addRating(Integer itemId, long rating);
+}
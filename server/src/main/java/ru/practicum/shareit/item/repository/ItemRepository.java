@@ -1,24 +1,70 @@
 package ru.practicum.shareit.item.repository;
 
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.dto.ResponseDto;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.annotations.QueryHints.CACHE_MODE;
+import static org.hibernate.annotations.QueryHints.FETCH_SIZE;
+import static org.hibernate.annotations.QueryHints.READ_ONLY;
 
 public interface ItemRepository extends JpaRepository<Item, Integer> {
-    List<Item> findAllByAvailableAndDescriptionContainingIgnoreCaseOrNameContainingIgnoreCase(boolean available,
-                                                                                              String description,
-                                                                                              String name,
-                                                                                              PageRequest pageRequest);
+    @Override
+    @EntityGraph(attributePaths = {"owner", "lastBooking", "lastBooking.booker", "nextBooking", "nextBooking.booker"})
+    @Query("select i from Item i where i.id = ?1")
+    Optional<Item> findById(Integer itemId);
+
+    @EntityGraph(attributePaths = {"owner"})
+    List<Item> findAllByIdIn(Collection<Integer> ids);
+
+    /**
+     * Порция всех вещей по возрастанию id для перестройки поисковых индексов, мимо кэша второго уровня.
+     */
+    @QueryHints({@QueryHint(name = READ_ONLY, value = "true"),
+            @QueryHint(name = CACHE_MODE, value = "IGNORE")})
+    List<Item> findAllByIdGreaterThanOrderByIdAsc(Integer id, PageRequest pageRequest);
 
+    @EntityGraph(attributePaths = {"owner", "lastBooking", "lastBooking.booker", "nextBooking", "nextBooking.booker"})
     List<Item> findAllByOwnerId(Integer userId, PageRequest pageRequest);
 
-    List<Item> findAllByRequestId(Integer requestId);
+    /**
+     * Курсор по всем вещам владельца для выгрузки: строки читаются из БД порциями по fetch size,
+     * мимо кэша второго уровня. Работает только внутри транзакции, поток нужно закрыть.
+     */
+    @QueryHints({@QueryHint(name = FETCH_SIZE, value = "500"),
+            @QueryHint(name = READ_ONLY, value = "true"),
+            @QueryHint(name = CACHE_MODE, value = "IGNORE")})
+    @Query("select i from Item i where i.owner.id = ?1 order by i.id")
+    Stream<Item> streamAllByOwnerId(Integer ownerId);
+
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    Optional<Item> findForBookingById(Integer itemId);
+
+    /**
+     * Ответы на запросы сразу в виде ResponseDto: сущности вещей и их владельцы не загружаются.
+     */
+    @Query("select new ru.practicum.shareit.request.dto.ResponseDto(i.id, i.name, i.description, i.requestId, " +
+            "i.available) from Item i where i.requestId = ?1 order by i.id")
+    List<ResponseDto> findResponsesByRequestId(Integer requestId);
+
+    @Query("select new ru.practicum.shareit.request.dto.ResponseDto(i.id, i.name, i.description, i.requestId, " +
+            "i.available) from Item i where i.requestId in ?1 order by i.id")
+    List<ResponseDto> findResponsesByRequests(Collection<Integer> requests);
 
-    @Query("select i from Item as i " +
-            "where i.requestId in ?1")
-    List<Item> findAllByRequests(List<Integer> requests);
+    @Query("select i.id from Item i join i.nextBooking b where b.start <= ?1")
+    List<Integer> findIdsWithStartedNextBooking(LocalDateTime now);
 
 }
@@ -3,22 +3,33 @@ package ru.practicum.shareit.item.service;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemBookDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemExportDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
 import ru.practicum.shareit.item.model.RequestItem;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ItemService {
     ItemDto createItem(Integer ownerId, ItemDto itemDto);
 
+    List<ItemImportResultDto> importItems(Integer ownerId, List<ItemDto> itemDtos);
+
     ItemDto updateItem(Integer ownerId, Integer itemId, ItemDto itemDto);
 
     ItemBookDto getItemById(Integer ownerId, Integer itemId);
 
     List<ItemDto> search(RequestItem requestItem);
 
+    List<String> suggest(String prefix, int size);
+
+    List<CommentDto> getComments(Integer itemId, Integer cursor, int size);
+
     CommentDto addComment(CommentDto commentDto, Integer userId, Integer itemId);
 
     List<ItemBookDto> getItemsForUser(RequestItem requestItem);
 
+    void exportItems(Integer ownerId, Consumer<ItemExportDto> consumer);
+
     ItemDto deleteItem(Integer itemId, Integer userId);
 }
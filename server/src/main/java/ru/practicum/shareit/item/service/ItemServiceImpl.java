@@ -3,60 +3,185 @@ package ru.practicum.shareit.item.service;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.enumStatus.Status;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.index.ItemBookingPointers;
+import ru.practicum.shareit.booking.index.ItemLocks;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.cache.ItemViewCache;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemBookDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemExportDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
+import ru.practicum.shareit.item.exception.ItemConflictException;
 import ru.practicum.shareit.item.exception.NotFoundItemException;
 import ru.practicum.shareit.item.exception.NotValidationException;
+import ru.practicum.shareit.item.index.ItemNameSuggester;
+import ru.practicum.shareit.item.index.ItemSearchIndex;
 import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemRating;
 import ru.practicum.shareit.item.model.RequestItem;
+import ru.practicum.shareit.item.model.SearchSort;
 import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRatingRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.exception.NotFoundUserException;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import javax.persistence.EntityManager;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static ru.practicum.shareit.booking.mapper.BookingMapper.toBookingDto;
 import static ru.practicum.shareit.item.mapper.CommentMapper.toCommentDto;
 import static ru.practicum.shareit.item.mapper.ItemMapper.toItemBookDto;
 import static ru.practicum.shareit.item.mapper.ItemMapper.toItemDto;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
 public class ItemServiceImpl implements ItemService {
+    private static final int MAX_IMPORT_SIZE = 1000;
+    private static final int IMPORT_TRANSACTION_SIZE = 100;
+    private static final int EXPORT_CHUNK_SIZE = 500;
+    private static final int LATEST_COMMENTS_SIZE = 10;
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+
     ItemRepository itemRepository;
     UserRepository userRepository;
     CommentRepository commentRepository;
+    ItemRatingRepository itemRatingRepository;
     BookingRepository bookingRepository;
+    ItemBookingPointers itemBookingPointers;
+    BookingIntervalIndex bookingIntervalIndex;
+    ItemLocks itemLocks;
+    ItemSearchIndex itemSearchIndex;
+    ItemNameSuggester itemNameSuggester;
+    ItemViewCache itemViewCache;
+    TransactionTemplate transactionTemplate;
+    EntityManager entityManager;
 
     @Override
     public ItemDto createItem(Integer ownerId, ItemDto itemDto) {
         User user = userRepository.findById(ownerId).orElseThrow(() ->
                 new NotFoundUserException(String.format("Пользователя с id: %d  не существует", ownerId)));
         Item item = itemRepository.save(ItemMapper.toItem(itemDto, user));
+        itemSearchIndex.put(item);
+        itemNameSuggester.put(item);
         return toItemDto(item);
     }
 
     @Override
-    public ItemDto updateItem(Integer ownerId, Integer itemId, ItemDto itemDto) {
-        Item item = itemRepository.findById(itemId).orElseThrow(() ->
-                new NotFoundItemException(String.format("Вещи с id:%d не существует", itemId)));
+    public List<ItemImportResultDto> importItems(Integer ownerId, List<ItemDto> itemDtos) {
+        if (itemDtos.size() > MAX_IMPORT_SIZE) {
+            throw new NotValidationException(String.format("За один запрос можно импортировать не больше %d вещей",
+                    MAX_IMPORT_SIZE));
+        }
         User user = userRepository.findById(ownerId).orElseThrow(() ->
                 new NotFoundUserException(String.format("Пользователя с id: %d  не существует", ownerId)));
+        List<ItemImportResultDto> results = new ArrayList<>(itemDtos.size());
+        for (int from = 0; from < itemDtos.size(); from += IMPORT_TRANSACTION_SIZE) {
+            int to = Math.min(from + IMPORT_TRANSACTION_SIZE, itemDtos.size());
+            List<Item> items = itemDtos.subList(from, to).stream()
+                    .map(itemDto -> {
+                        Item item = ItemMapper.toItem(itemDto, user);
+                        item.setId(null);
+                        return item;
+                    })
+                    .collect(Collectors.toList());
+            try {
+                transactionTemplate.executeWithoutResult(status -> itemRepository.saveAll(items));
+                for (int i = 0; i < items.size(); i++) {
+                    results.add(imported(from + i, items.get(i)));
+                }
+            } catch (DataAccessException e) {
+                // в пачке есть строка, которую БД не приняла: сохраняем по одной, чтобы найти ее
+                log.warn("Пачка импорта вещей пользователя с id: {} отклонена, сохраняем по одной", ownerId, e);
+                for (int i = 0; i < items.size(); i++) {
+                    Item item = items.get(i);
+                    item.setId(null);
+                    item.setVersion(null);
+                    try {
+                        results.add(imported(from + i, itemRepository.save(item)));
+                    } catch (DataAccessException rowException) {
+                        results.add(ItemImportResultDto.failed(from + i, rowException.getMostSpecificCause().getMessage()));
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private ItemImportResultDto imported(int row, Item item) {
+        itemSearchIndex.put(item);
+        itemNameSuggester.put(item);
+        return ItemImportResultDto.created(row, item.getId());
+    }
+
+    @Override
+    public ItemDto updateItem(Integer ownerId, Integer itemId, ItemDto itemDto) {
+        Item item = writeItem(itemId, () -> applyUpdate(ownerId, itemId, itemDto));
+        itemSearchIndex.put(item);
+        itemNameSuggester.put(item);
+        itemDto.setId(itemId);
+        return toItemDto(item);
+    }
+
+    /**
+     * Бронирования поднимают версию вещи, поэтому правки владельца берут ту же блокировку, что и они,
+     * а конфликт с записью другого узла повторяют на свежей версии.
+     */
+    private <T> T writeItem(Integer itemId, Supplier<T> action) {
+        Lock lock = itemLocks.get(itemId);
+        lock.lock();
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    T result = transactionTemplate.execute(status -> action.get());
+                    itemViewCache.invalidate(itemId);
+                    return result;
+                } catch (OptimisticLockingFailureException e) {
+                    bookingIntervalIndex.evict(itemId);
+                    if (attempt >= MAX_WRITE_ATTEMPTS) {
+                        throw new ItemConflictException(String.format("Не удалось изменить вещь с id: %d " +
+                                "из-за параллельных изменений, повторите запрос", itemId));
+                    }
+                    log.warn("Конфликт версий вещи с id: {}, попытка {} из {}", itemId, attempt, MAX_WRITE_ATTEMPTS);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Item applyUpdate(Integer ownerId, Integer itemId, ItemDto itemDto) {
+        Item item = findItem(itemId);
+        User user = findUser(ownerId);
         if (!item.getOwner().getId().equals(user.getId())) {
             throw new NotValidationException(String.format("Пользователь с id: %d не является владельцем вещи с id: %d",
                     user.getId(), item.getId()));
@@ -81,23 +206,34 @@ public class ItemServiceImpl implements ItemService {
                 throw new NotValidationException("Валидация по id запроса не пройдена");
             }
         }
-        itemDto.setId(itemId);
+        Integer version = item.getVersion();
         itemRepository.save(item);
-        return toItemDto(item);
+        itemRepository.flush();
+        // правка подняла версию вещи: таймлайн бронирований сдвигается вслед, чтобы не перечитываться из БД
+        if (!Objects.equals(version, item.getVersion())) {
+            bookingIntervalIndex.advance(itemId, version);
+        }
+        return item;
     }
 
     @Override
     public ItemBookDto getItemById(Integer ownerId, Integer itemId) {
+        return itemViewCache.get(itemId, ownerId, () -> loadItemView(ownerId, itemId));
+    }
+
+    private ItemBookDto loadItemView(Integer ownerId, Integer itemId) {
         Item item = itemRepository.findById(itemId).orElseThrow(() ->
                 new NotFoundItemException(String.format("Вещи с id: %d не существует.", itemId)));
         ItemBookDto itemBookDto;
-        List<Booking> bookings = bookingRepository.findAllByItemId(itemId);
-        List<CommentDto> comments = toCommentDto(commentRepository.findAllByItemId(itemId));
+        List<CommentDto> comments = toCommentDto(commentRepository.findAllByItemIdAndIdLessThanOrderByIdDesc(itemId,
+                Integer.MAX_VALUE, PageRequest.of(0, LATEST_COMMENTS_SIZE)));
         itemBookDto = toItemBookDto(item);
-        if (item.getOwner().getId().equals(ownerId) && !bookings.isEmpty()) {
-            findLastAndNextBooking(itemBookDto, bookings);
+        if (item.getOwner().getId().equals(ownerId)) {
+            findLastAndNextBooking(itemBookDto, item);
         }
         itemBookDto.setComments(comments);
+        itemBookDto.setRating(ItemMapper.toItemRatingDto(itemRatingRepository.findById(itemId)
+                .orElseGet(() -> ItemRating.empty(itemId))));
 
         return itemBookDto;
     }
@@ -108,44 +244,117 @@ public class ItemServiceImpl implements ItemService {
         PageRequest pageRequest = PageRequest.of(requestItem.getFrom() / requestItem.getSize(), requestItem.getSize());
 
         List<Item> items = itemRepository.findAllByOwnerId(userId, pageRequest);
-        List<Booking> bookings = bookingRepository.findAllByItems(items);
-        List<CommentDto> comments = toCommentDto(commentRepository.findAllByItems(items));
+        List<Integer> itemIds = items.stream().map(Item::getId).collect(Collectors.toList());
+        Map<Integer, List<CommentDto>> commentsByItem = findLatestComments(itemIds).stream()
+                .collect(Collectors.groupingBy(CommentDto::getItemId));
+        Map<Integer, ItemRating> ratingsByItem = itemRatingRepository.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(ItemRating::getItemId, Function.identity()));
         List<ItemBookDto> itemBookDtoList = new ArrayList<>();
 
         for (Item currentItem : items) {
             Integer itemId = currentItem.getId();
             ItemBookDto itemBookDto = toItemBookDto(currentItem);
 
-            List<Booking> bookingsForItem = bookings.stream()
-                    .filter(booking -> itemId.equals(booking.getItem().getId()))
-                    .collect(Collectors.toList());
-
-            List<CommentDto> commentsForItem = comments.stream()
-                    .filter(commentDto -> itemId.equals(commentDto.getItemId()))
-                    .collect(Collectors.toList());
+            List<CommentDto> commentsForItem = commentsByItem.getOrDefault(itemId, Collections.emptyList());
 
-            if (userId.equals(currentItem.getOwner().getId()) && !bookings.isEmpty()) {
-                findLastAndNextBooking(itemBookDto, bookingsForItem);
+            if (userId.equals(currentItem.getOwner().getId())) {
+                findLastAndNextBooking(itemBookDto, currentItem);
             }
 
             itemBookDto.setComments(commentsForItem);
+            itemBookDto.setRating(ItemMapper.toItemRatingDto(ratingsByItem.getOrDefault(itemId,
+                    ItemRating.empty(itemId))));
             itemBookDtoList.add(itemBookDto);
         }
         return itemBookDtoList;
     }
 
+    private List<CommentDto> findLatestComments(List<Integer> itemIds) {
+        if (itemIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Integer> commentIds = commentRepository.findLatestIds(itemIds, LATEST_COMMENTS_SIZE);
+        if (commentIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return toCommentDto(commentRepository.findAllByIdInOrderByIdDesc(commentIds));
+    }
+
+    @Override
+    public List<CommentDto> getComments(Integer itemId, Integer cursor, int size) {
+        findItem(itemId);
+        return toCommentDto(commentRepository.findAllByItemIdAndIdLessThanOrderByIdDesc(itemId,
+                cursor == null ? Integer.MAX_VALUE : cursor, PageRequest.of(0, size)));
+    }
+
+    /**
+     * Выгружает все вещи владельца вместе с бронированиями и комментариями. Вещи читаются курсором,
+     * бронирования и комментарии догружаются двумя запросами на порцию из EXPORT_CHUNK_SIZE вещей,
+     * после чего контекст персистентности очищается, поэтому память не растет с числом вещей.
+     */
+    @Override
+    public void exportItems(Integer ownerId, Consumer<ItemExportDto> consumer) {
+        findUser(ownerId);
+        TransactionTemplate readOnlyTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnlyTemplate.setReadOnly(true);
+        readOnlyTemplate.executeWithoutResult(status -> {
+            try (Stream<Item> items = itemRepository.streamAllByOwnerId(ownerId)) {
+                List<Item> chunk = new ArrayList<>(EXPORT_CHUNK_SIZE);
+                items.forEach(item -> {
+                    chunk.add(item);
+                    if (chunk.size() == EXPORT_CHUNK_SIZE) {
+                        exportChunk(chunk, consumer);
+                    }
+                });
+                exportChunk(chunk, consumer);
+            }
+        });
+    }
+
+    private void exportChunk(List<Item> chunk, Consumer<ItemExportDto> consumer) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        Map<Integer, List<BookingDto>> bookingsByItem = bookingRepository.findAllByItems(chunk).stream()
+                .collect(Collectors.groupingBy(booking -> booking.getItem().getId(),
+                        Collectors.mapping(BookingMapper::toBookingDto, Collectors.toList())));
+        Map<Integer, List<CommentDto>> commentsByItem = toCommentDto(commentRepository.findAllByItems(chunk)).stream()
+                .collect(Collectors.groupingBy(CommentDto::getItemId));
+        for (Item item : chunk) {
+            consumer.accept(ItemMapper.toItemExportDto(item,
+                    bookingsByItem.getOrDefault(item.getId(), Collections.emptyList()),
+                    commentsByItem.getOrDefault(item.getId(), Collections.emptyList())));
+        }
+        chunk.clear();
+        entityManager.clear();
+    }
+
     @Override
     public List<ItemDto> search(RequestItem item) {
         String text = item.getText();
-        PageRequest pageRequest = PageRequest.of(item.getFrom() / item.getSize(), item.getSize());
+        long offset = (long) item.getFrom() / item.getSize() * item.getSize();
 
         if (text.isBlank()) {
             return new ArrayList<>();
         }
-        List<Item> items = itemRepository
-                .findAllByAvailableAndDescriptionContainingIgnoreCaseOrNameContainingIgnoreCase(true, text,
-                        text, pageRequest);
-        return ItemMapper.toItemDtoList(items);
+        List<Integer> ids = item.getSort() == SearchSort.RELEVANCE
+                ? itemSearchIndex.searchByRelevance(text, offset, item.getSize())
+                : itemSearchIndex.search(text, offset, item.getSize());
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Integer, Item> itemsById = itemRepository.findAllByIdIn(ids).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        return ids.stream()
+                .map(itemsById::get)
+                .filter(Objects::nonNull)
+                .map(ItemMapper::toItemDto)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<String> suggest(String prefix, int size) {
+        return itemNameSuggester.suggest(prefix, size);
     }
 
     @Override
@@ -156,48 +365,74 @@ public class ItemServiceImpl implements ItemService {
         if (item.getOwner().getId().equals(userId)) {
             throw new NotValidationException("Владелец не может оставить отзыв");
         }
+        if (commentDto.getRating() < 0 || commentDto.getRating() > ItemRating.MAX_RATING) {
+            throw new NotValidationException(String.format("Оценка должна быть от 1 до %d или 0 без оценки",
+                    ItemRating.MAX_RATING));
+        }
 
-        List<Booking> bookings = bookingRepository.findAllByBookerIdAndEndIsBeforeOrderByEndDesc(userId, LocalDateTime.now());
-
-        bookings.stream()
-                .filter((booking) -> booking.getBooker().getId().equals(userId))
-                .findFirst()
-                .orElseThrow(() -> new NotValidationException("Пользователь с id: " + userId +
-                        " не может взять в аренду вещь с  id: " + itemId));
+        if (!bookingRepository.existsByBookerIdAndItemIdAndStatusAndEndBefore(userId, itemId, Status.APPROVED,
+                LocalDateTime.now())) {
+            throw new NotValidationException("Пользователь с id: " + userId +
+                    " не брал в аренду вещь с id: " + itemId);
+        }
 
         commentDto.setCreated(LocalDateTime.now());
-        Comment comment = commentRepository.save(CommentMapper.toComment(commentDto, user, item));
+        Comment comment = transactionTemplate.execute(status -> {
+            Comment saved = commentRepository.save(CommentMapper.toComment(commentDto, user, item));
+            if (saved.getRating() != null && saved.getRating() > 0) {
+                addRating(itemId, saved.getRating());
+            }
+            return saved;
+        });
+        itemViewCache.invalidate(itemId);
         return toCommentDto(comment);
     }
 
+    private void addRating(Integer itemId, int rating) {
+        if (itemRatingRepository.addRating(itemId, rating) == 0) {
+            itemRatingRepository.save(ItemRating.first(itemId, rating));
+        }
+    }
+
     @Override
     public ItemDto deleteItem(Integer itemId, Integer userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() ->
-                        new NotFoundUserException(String.format("Пользователя с id: %d не существует", userId)));
-        Item item = itemRepository.findById(itemId)
-                .orElseThrow(() ->
-                        new NotFoundItemException(String.format("Вещи с id: %d не существует", itemId)));
-        if (!item.getOwner().getId().equals(user.getId())) {
-            throw new NotValidationException(String.format("Пользователь с id: %d не является владельцем вещи с id: %d",
-                    user.getId(), item.getId()));
-        }
-        itemRepository.delete(item);
+        Item item = writeItem(itemId, () -> {
+            User user = findUser(userId);
+            Item found = findItem(itemId);
+            if (!found.getOwner().getId().equals(user.getId())) {
+                throw new NotValidationException(String.format("Пользователь с id: %d не является владельцем вещи с id: %d",
+                        user.getId(), found.getId()));
+            }
+            itemRepository.delete(found);
+            return found;
+        });
+        bookingIntervalIndex.evict(itemId);
+        itemSearchIndex.remove(itemId);
+        itemNameSuggester.remove(itemId);
         return toItemDto(item);
     }
 
-    private void findLastAndNextBooking(ItemBookDto item, List<Booking> bookings) {
-        Booking lastBooking = bookings.stream()
-                .filter(booking -> booking.getStart().isBefore(LocalDateTime.now()) && !Status.REJECTED.equals(booking.getStatus()))
-                .min(Booking::compareTo)
-                .orElse(null);
+    private User findUser(Integer userId) {
+        return userRepository.findById(userId).orElseThrow(() ->
+                new NotFoundUserException(String.format("Пользователя с id: %d не существует", userId)));
+    }
+
+    private Item findItem(Integer itemId) {
+        return itemRepository.findById(itemId).orElseThrow(() ->
+                new NotFoundItemException(String.format("Вещи с id: %d не существует", itemId)));
+    }
 
-        Booking nextBooking = bookings.stream()
-                .filter((booking) -> booking.getStart().isAfter(LocalDateTime.now()) && !Status.REJECTED.equals(booking.getStatus()))
-                .max(Booking::compareTo)
-                .orElse(null);
+    private void findLastAndNextBooking(ItemBookDto itemBookDto, Item item) {
+        Booking lastBooking = item.getLastBooking();
+        Booking nextBooking = item.getNextBooking();
+        LocalDateTime now = LocalDateTime.now();
+        if (nextBooking != null && !nextBooking.getStart().isAfter(now)) {
+            // ближайшее бронирование уже началось, а плановый пересчет ссылок еще не прошел
+            lastBooking = itemBookingPointers.findLast(item.getId(), now);
+            nextBooking = itemBookingPointers.findNext(item.getId(), now);
+        }
 
-        item.setLastBooking(lastBooking == null ? null : toBookingDto(lastBooking));
-        item.setNextBooking(nextBooking == null ? null : toBookingDto(nextBooking));
+        itemBookDto.setLastBooking(lastBooking == null ? null : toBookingDto(lastBooking));
+        itemBookDto.setNextBooking(nextBooking == null ? null : toBookingDto(nextBooking));
     }
 }
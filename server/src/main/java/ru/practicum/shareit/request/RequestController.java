@@ -2,9 +2,11 @@ package ru.practicum.shareit.request;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.request.dto.RequestDto;
 import ru.practicum.shareit.request.model.GetRequest;
+import ru.practicum.shareit.request.model.RequestCursor;
 import ru.practicum.shareit.request.service.RequestService;
 
 import java.util.List;
@@ -33,11 +35,20 @@ public class RequestController {
     }
 
     @GetMapping("/all")
-    public List<RequestDto> getRequestsPageable(@RequestHeader(HEADER_USER) Integer userId,
-                                                @RequestParam(defaultValue = "0") int from,
-                                                @RequestParam(defaultValue = "10") int size) {
+    public ResponseEntity<List<RequestDto>> getRequestsPageable(@RequestHeader(HEADER_USER) Integer userId,
+                                                                @RequestParam(defaultValue = "0") int from,
+                                                                @RequestParam(defaultValue = "10") int size,
+                                                                @RequestParam(required = false) String cursor) {
         log.info("Поступил запрос на вывод всех запросов");
-        return requestService.getRequests(GetRequest.of(userId, from, size));
+        GetRequest request = GetRequest.of(userId, from, size, cursor);
+        List<RequestDto> requests = requestService.getRequests(request);
+        if (cursor == null || requests.size() < size) {
+            return ResponseEntity.ok(requests);
+        }
+        RequestDto last = requests.get(requests.size() - 1);
+        return ResponseEntity.ok()
+                .header(HEADER_NEXT_CURSOR, new RequestCursor(last.getCreated(), last.getId()).encode())
+                .body(requests);
     }
 
     @GetMapping(REQUEST_ID_PATH)
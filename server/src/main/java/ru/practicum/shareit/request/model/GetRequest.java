@@ -10,6 +10,7 @@ public class GetRequest {
     Integer userId;
     int from;
     int size;
+    String cursor;
 
     public static GetRequest of(Integer userId, int from, int size) {
         GetRequest request = new GetRequest();
@@ -19,4 +20,11 @@ public class GetRequest {
 
         return request;
     }
+
+    public static GetRequest of(Integer userId, int from, int size, String cursor) {
+        GetRequest request = of(userId, from, size);
+        request.setCursor(cursor);
+
+        return request;
+    }
 }
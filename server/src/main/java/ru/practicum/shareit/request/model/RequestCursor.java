@@ -0,0 +1,27 @@
+package ru.practicum.shareit.request.model;
+
+import lombok.Value;
+import ru.practicum.shareit.cursor.CursorCodec;
+
+import java.time.LocalDateTime;
+
+/**
+ * Непрозрачный курсор ленты запросов: позиция последнего отданного запроса в порядке
+ * (time_of_creation desc, id desc). Следующая страница начинается строго после нее.
+ */
+@Value
+public class RequestCursor {
+    LocalDateTime created;
+    Integer id;
+
+    /**
+     * Возвращает null для пустого курсора: первая страница ленты.
+     */
+    public static RequestCursor decode(String cursor) {
+        return CursorCodec.decode(cursor, RequestCursor::new);
+    }
+
+    public String encode() {
+        return CursorCodec.encode(created, id);
+    }
+}
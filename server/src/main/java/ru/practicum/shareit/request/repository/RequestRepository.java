@@ -2,12 +2,32 @@ package ru.practicum.shareit.request.repository;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import ru.practicum.shareit.request.model.Request;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
 import java.util.List;
 
+import static org.hibernate.annotations.QueryHints.CACHEABLE;
+
 public interface RequestRepository extends JpaRepository<Request, Integer> {
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
     List<Request> findAllByRequestorId(Integer userId);
 
-    List<Request> findAllByRequestorIdNotLike(Integer userId, Pageable pageable);
+    @QueryHints(@QueryHint(name = CACHEABLE, value = "true"))
+    List<Request> findAllByRequestorIdNotOrderByTimeOfCreationDescIdDesc(Integer userId, Pageable pageable);
+
+    /**
+     * Страница ленты строго после курсора (created, id) в порядке (time_of_creation desc, id desc).
+     * Идет по индексу idx_requests_created_id, поэтому глубина страницы не влияет на время ответа.
+     */
+    @Query("select r from Request r " +
+            "where r.requestor.id <> ?1 " +
+            "and (r.timeOfCreation < ?2 or (r.timeOfCreation = ?2 and r.id < ?3)) " +
+            "order by r.timeOfCreation desc, r.id desc")
+    List<Request> findAllByRequestorIdNotBefore(Integer userId, LocalDateTime created, Integer id,
+                                                Pageable pageable);
+
 }
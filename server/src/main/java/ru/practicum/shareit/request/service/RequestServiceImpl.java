@@ -4,20 +4,25 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.request.dto.RequestDto;
 import ru.practicum.shareit.request.dto.ResponseDto;
 import ru.practicum.shareit.request.exception.NotFoundRequestException;
 import ru.practicum.shareit.request.model.GetRequest;
 import ru.practicum.shareit.request.model.Request;
+import ru.practicum.shareit.request.model.RequestCursor;
 import ru.practicum.shareit.request.repository.RequestRepository;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.exception.NotFoundUserException;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import static ru.practicum.shareit.request.mapper.RequestMapper.*;
@@ -34,7 +39,8 @@ public class RequestServiceImpl implements RequestService {
     public RequestDto addRequest(RequestDto requestDto, Integer userId) {
         User user = checkUser(userId);
 
-        requestDto.setCreated(LocalDateTime.now());
+        // БД хранит время с точностью до микросекунд: то же значение должно попасть в кэш и в курсор ленты
+        requestDto.setCreated(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
         Request request = toRequest(requestDto, user);
         requestRepository.save(request);
 
@@ -47,11 +53,7 @@ public class RequestServiceImpl implements RequestService {
         List<Request> requests = requestRepository.findAllByRequestorId(userId);
         List<RequestDto> requestDtoList = toRequestDtoList(requests);
 
-        List<Item> items = itemRepository.findAllByRequests(requests.stream()
-                .map(Request::getId)
-                .collect(Collectors.toList()));
-
-        addResponsesToRequests(requestDtoList, items);
+        addResponsesToRequests(requestDtoList);
 
         return requestDtoList.stream()
                 .sorted(RequestDto::compareTo)
@@ -63,15 +65,9 @@ public class RequestServiceImpl implements RequestService {
         checkUser(userId);
         Request request = requestRepository.findById(id)
                 .orElseThrow(() -> new NotFoundRequestException(String.format("Запроса с id: %d не существует", id)));
-        List<Item> items = itemRepository.findAllByRequestId(id);
-
         RequestDto requestDto = toRequestDto(request);
+        requestDto.setItems(itemRepository.findResponsesByRequestId(id));
 
-        List<ResponseDto> response = items.stream()
-                .map(item -> new ResponseDto(item.getId(), item.getName(), item.getDescription(),
-                        item.getRequestId(), item.getAvailable()))
-                .collect(Collectors.toList());
-        requestDto.setItems(response);
         return requestDto;
     }
 
@@ -88,16 +84,24 @@ public class RequestServiceImpl implements RequestService {
     @Override
     public List<RequestDto> getRequests(GetRequest request) {
         User user = checkUser(request.getUserId());
-        PageRequest pageable = PageRequest.of(request.getFrom(), request.getSize());
-
-        List<Request> requests = requestRepository.findAllByRequestorIdNotLike(user.getId(), pageable);
+        List<Request> requests;
+        if (request.getCursor() == null) {
+            requests = requestRepository.findAllByRequestorIdNotOrderByTimeOfCreationDescIdDesc(user.getId(),
+                    PageRequest.of(request.getFrom() / request.getSize(), request.getSize()));
+        } else {
+            // пустой курсор, как и в выдаче бронирований, открывает ленту курсоров с первой страницы
+            RequestCursor cursor = RequestCursor.decode(request.getCursor());
+            PageRequest page = PageRequest.of(0, request.getSize());
+            if (cursor == null) {
+                requests = requestRepository.findAllByRequestorIdNotOrderByTimeOfCreationDescIdDesc(user.getId(), page);
+            } else {
+                requests = requestRepository.findAllByRequestorIdNotBefore(user.getId(), cursor.getCreated(),
+                        cursor.getId(), page);
+            }
+        }
         List<RequestDto> requestDtoList = toRequestDtoList(requests);
 
-        List<Item> items = itemRepository.findAllByRequests(requests.stream()
-                .map(Request::getId)
-                .collect(Collectors.toList()));
-
-        addResponsesToRequests(requestDtoList, items);
+        addResponsesToRequests(requestDtoList);
 
         return requestDtoList;
     }
@@ -107,15 +111,22 @@ public class RequestServiceImpl implements RequestService {
                 .orElseThrow(() -> new NotFoundUserException(String.format("Пользователь с id: %d не найден", userId)));
     }
 
-    private void addResponsesToRequests(List<RequestDto> requestDtoList, List<Item> items) {
-        for (RequestDto currentRequest : requestDtoList) {
-            List<ResponseDto> response = items.stream()
-                    .filter(item -> item.getRequestId().equals(currentRequest.getId()))
-                    .map(item -> new ResponseDto(item.getId(), item.getName(), item.getDescription(),
-                            item.getRequestId(), item.getAvailable()))
-                    .collect(Collectors.toList());
+    /**
+     * Один запрос ответов на всю страницу и один проход по ним: ответы раскладываются по id запроса,
+     * после чего каждый запрос забирает свой список из map.
+     */
+    private void addResponsesToRequests(List<RequestDto> requestDtoList) {
+        if (requestDtoList.isEmpty()) {
+            return;
+        }
+        List<Integer> requestIds = requestDtoList.stream().map(RequestDto::getId).collect(Collectors.toList());
+        Map<Integer, List<ResponseDto>> responsesByRequest = new HashMap<>();
+        for (ResponseDto response : itemRepository.findResponsesByRequests(requestIds)) {
+            responsesByRequest.computeIfAbsent(response.getRequestId(), id -> new ArrayList<>()).add(response);
+        }
 
-            currentRequest.setItems(response);
+        for (RequestDto currentRequest : requestDtoList) {
+            currentRequest.setItems(responsesByRequest.getOrDefault(currentRequest.getId(), Collections.emptyList()));
         }
     }
 
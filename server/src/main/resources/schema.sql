@@ -3,9 +3,22 @@ drop table IF EXISTS items CASCADE;
 drop table IF EXISTS comments CASCADE;
 drop table IF EXISTS bookings CASCADE;
 drop table IF EXISTS requests CASCADE;
+drop table IF EXISTS item_ratings CASCADE;
+drop sequence IF EXISTS users_seq;
+drop sequence IF EXISTS items_seq;
+drop sequence IF EXISTS bookings_seq;
+drop sequence IF EXISTS requests_seq;
+drop sequence IF EXISTS comments_seq;
+
+-- шаг 50 совпадает с allocationSize в сущностях: Hibernate берет блок id за одно обращение к последовательности
+create sequence IF NOT EXISTS users_seq start with 1 increment by 50;
+create sequence IF NOT EXISTS items_seq start with 1 increment by 50;
+create sequence IF NOT EXISTS bookings_seq start with 1 increment by 50;
+create sequence IF NOT EXISTS requests_seq start with 1 increment by 50;
+create sequence IF NOT EXISTS comments_seq start with 1 increment by 50;
 
 create TABLE IF NOT EXISTS users (
-  id integer GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+  id integer NOT NULL,
   name VARCHAR(255) NOT NULL,
   email VARCHAR(512) NOT NULL,
   CONSTRAINT pk_user PRIMARY KEY (id),
@@ -13,17 +26,20 @@ create TABLE IF NOT EXISTS users (
 );
 
 create table if not exists items (
-id integer generated by default as identity not null,
+id integer not null,
 name VARCHAR(255) not null,
 description VARCHAR(255) not null,
 available boolean default false,
 owner_id integer not null references users(id),
 request_id integer,
+version integer default 0 not null,
+last_booking_id integer,
+next_booking_id integer,
 constraint pk_item primary key (id)
 );
 
 create table if not exists bookings (
-id integer generated by default as identity not null,
+id integer not null,
 start_date TIMESTAMP WITHOUT TIME zone not null,
 end_date TIMESTAMP WITHOUT TIME zone not null,
 item_id integer not null references items(id),
@@ -33,7 +49,7 @@ constraint pk_booking primary key (id)
 );
 
 create table if not exists requests (
-id integer generated by default as identity not null,
+id integer not null,
 description varchar(255) not null,
 requestor_id integer not null references users(id),
 time_of_creation TIMESTAMP not null,
@@ -42,7 +58,7 @@ constraint pk_request primary key (id)
 );
 
 create table if not exists comments (
-id integer generated by default as identity not null,
+id integer not null,
 text varchar(255) not null,
 item_id integer not null references items(id),
 author_id integer not null references users(id),
@@ -50,3 +66,23 @@ rating integer,
 time_of_creation timestamp,
 constraint pk_comment primary key (id)
 );
+
+create table if not exists item_ratings (
+item_id integer not null references items(id) on delete cascade,
+rating_count bigint not null,
+rating_sum bigint not null,
+one_star bigint not null,
+two_stars bigint not null,
+three_stars bigint not null,
+four_stars bigint not null,
+five_stars bigint not null,
+constraint pk_item_rating primary key (item_id)
+);
+
+create index if not exists idx_bookings_booker_end on bookings (booker_id, end_date desc, id desc);
+create index if not exists idx_bookings_item_end on bookings (item_id, end_date desc, id desc);
+-- проверка права на отзыв: завершенное подтвержденное бронирование вещи пользователем.
+-- H2 не поддерживает частичные индексы, поэтому статус входит в ключ, а не в условие where
+create index if not exists idx_bookings_booker_item_status_end on bookings (booker_id, item_id, status, end_date);
+create index if not exists idx_comments_item on comments (item_id, id desc);
+create index if not exists idx_requests_created_id on requests (time_of_creation desc, id desc);
@@ -1,5 +1,6 @@
 delete from requests cascade;
 delete from comments cascade;
+delete from item_ratings;
 delete from bookings cascade;
 delete from items cascade;
 delete from users cascade;
\ No newline at end of file
@@ -1,5 +1,6 @@
 delete from requests cascade;
 delete from comments cascade;
+delete from item_ratings;
 delete from bookings cascade;
 delete from items cascade;
 delete from users cascade;
@@ -20,10 +21,21 @@ values (1, 2, 1, '2023-07-08 20:20:20', '2023-07-08 21:20:20', 'APPROVED'),
        (3, 2, 1, '2023-07-11 20:20:20', '2029-07-14 21:20:20', 'APPROVED'),
        (4, 2, 1, '2030-07-14 22:20:20', '2030-07-15 21:20:20', 'CANCELED');
 
+update items set last_booking_id = 3, next_booking_id = 2 where id = 1;
+
 insert into comments (id, author_id, item_id, rating, text, time_of_creation)
 values (2, 2, 1, 1, 'comment text', '2023-07-11 12:20:20');
 
+insert into item_ratings (item_id, rating_count, rating_sum, one_star, two_stars, three_stars, four_stars, five_stars)
+values (1, 1, 1, 1, 0, 0, 0, 0);
+
 insert into requests(id, description, requestor_id, time_of_creation, response_items)
 values (1, 'Отвертка', 2, '2023-07-10 20:20:20', null),
        (2, 'Пила', 2, '2023-07-11 10:20:20', null),
-       (3, 'Стремянка', 2, '2023-07-12 10:20:20', null);
\ No newline at end of file
+       (3, 'Стремянка', 2, '2023-07-12 10:20:20', null);
+-- строки выше вставлены с явными id, последовательности сдвигаются за них
+alter sequence users_seq restart with 1001;
+alter sequence items_seq restart with 1001;
+alter sequence bookings_seq restart with 1001;
+alter sequence requests_seq restart with 1001;
+alter sequence comments_seq restart with 1001;
@@ -0,0 +1,53 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.util.QueryCounter;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Transactional
+@SpringBootTest
+public class BatchInsertIntegrationTest {
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private QueryCounter queryCounter;
+
+    @BeforeEach
+    public void setUp() {
+        queryCounter = new QueryCounter(entityManagerFactory);
+    }
+
+    @Test
+    public void saveAllWhenManyUsersSendInsertsInBatches() {
+        List<User> users = IntStream.range(0, 120)
+                .mapToObj(i -> User.builder().name("User " + i).email("user" + i + "@batch.ru").build())
+                .collect(Collectors.toList());
+        queryCounter.reset();
+
+        userRepository.saveAll(users);
+        entityManager.flush();
+
+        // 120 строк: три обращения к последовательности за блоками по 50 id и три пакета вставок
+        queryCounter.assertAtMost(6, "Вставка 120 пользователей");
+        assertEquals(120, users.stream().map(User::getId).distinct().count());
+    }
+}
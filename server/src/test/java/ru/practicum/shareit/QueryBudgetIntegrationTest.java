@@ -0,0 +1,99 @@
+package ru.practicum.shareit;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.util.QueryCounter;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.practicum.shareit.constant.Constant.HEADER_USER;
+
+@Transactional
+@AutoConfigureMockMvc
+@SpringBootTest(properties = "db.name = test")
+@Sql(value = {"/set-up-before.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(value = {"/set-up-after.sql"}, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class QueryBudgetIntegrationTest {
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private QueryCounter queryCounter;
+    private int ownerId;
+    private int bookerId;
+
+    @BeforeEach
+    public void setUp() {
+        queryCounter = new QueryCounter(entityManagerFactory);
+        ownerId = 1;
+        bookerId = 2;
+    }
+
+    @Test
+    public void getBookingsForBookerFitsBudget() {
+        assertBudget(get("/bookings").header(HEADER_USER, bookerId), 2);
+    }
+
+    @Test
+    public void getBookingsForOwnerFitsBudget() {
+        assertBudget(get("/bookings/owner").header(HEADER_USER, ownerId), 2);
+    }
+
+    @Test
+    public void getBookingByIdFitsBudget() {
+        assertBudget(get("/bookings/1").header(HEADER_USER, bookerId), 1);
+    }
+
+    @Test
+    public void getItemsForOwnerFitsBudget() {
+        // вещи, id последних отзывов, сами отзывы и сводки оценок - по одному запросу на страницу
+        assertBudget(get("/items").header(HEADER_USER, ownerId), 4);
+    }
+
+    @Test
+    public void getItemByIdFitsBudget() {
+        assertBudget(get("/items/1").header(HEADER_USER, ownerId), 3);
+    }
+
+    @Test
+    public void searchItemsFitsBudget() {
+        assertBudget(get("/items/search").param("text", "отвертка").header(HEADER_USER, bookerId), 1);
+    }
+
+    @Test
+    public void getRequestsForUserFitsBudget() {
+        assertBudget(get("/requests").header(HEADER_USER, bookerId), 3);
+    }
+
+    @Test
+    public void getAllRequestsFitsBudget() {
+        assertBudget(get("/requests/all").header(HEADER_USER, ownerId), 3);
+    }
+
+    @SneakyThrows
+    private void assertBudget(MockHttpServletRequestBuilder request, long budget) {
+        entityManager.flush();
+        entityManager.clear();
+        queryCounter.reset();
+
+        mvc.perform(request).andExpect(status().isOk());
+
+        queryCounter.assertAtMost(budget, request.buildRequest(null).getRequestURI());
+    }
+}
@@ -69,6 +69,8 @@ public class BookingControllerIntegrationTest {
     @Test
     @SneakyThrows
     public void addBookingWhenInvokedMethodReturnBooking() {
+        bookingDto.setItemId(2);
+
         mvc.perform(post(URL).header(HEADER_USER, userId).content(mapper.writeValueAsString(bookingDto)).characterEncoding(StandardCharsets.UTF_8).contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk()).andExpect(jsonPath("$.bookerId", is(userId)));
     }
 
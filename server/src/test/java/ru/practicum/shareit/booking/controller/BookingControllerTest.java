@@ -14,6 +14,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.booking.BookingController;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.exception.NotFoundBookingException;
+import ru.practicum.shareit.booking.model.BookingCursor;
 import ru.practicum.shareit.booking.model.RequestBooking;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.user.exception.NotFoundUserException;
@@ -24,7 +25,9 @@ import java.util.List;
 
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.practicum.shareit.constant.Constant.HEADER_NEXT_CURSOR;
 import static ru.practicum.shareit.constant.Constant.HEADER_USER;
 
 @FieldDefaults(level = AccessLevel.PRIVATE)
@@ -127,4 +130,28 @@ public class BookingControllerTest {
 
         mvc.perform(get(URL).queryParam("state", "ALL").queryParam("from", "0").queryParam("size", "10").header("X-Sharer-User-Id", userId)).andExpect(status().isOk());
     }
+
+    @Test
+    @SneakyThrows
+    public void getBookingByUserWhenCursorModePageIsFullReturnNextCursor() {
+        requestBooking = RequestBooking.builder().userId(userId).state("ALL").size(1).from(0).cursor("").build();
+        when(bookingService.getBookingByUser(requestBooking)).thenReturn(List.of(bookingDto));
+
+        mvc.perform(get(URL).queryParam("cursor", "").queryParam("size", "1").header(HEADER_USER, userId))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HEADER_NEXT_CURSOR,
+                        new BookingCursor(bookingDto.getEnd(), bookingDto.getId()).encode()));
+    }
+
+    @Test
+    @SneakyThrows
+    public void getBookingByUserWhenOffsetModeReturnNoCursor() {
+        requestBooking = RequestBooking.builder().userId(userId).state("ALL").size(1).from(0).build();
+        when(bookingService.getBookingByUser(requestBooking)).thenReturn(List.of(bookingDto));
+
+        mvc.perform(get(URL).queryParam("size", "1").header(HEADER_USER, userId))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HEADER_NEXT_CURSOR));
+    }
+
 }
@@ -0,0 +1,144 @@
+package ru.practicum.shareit.booking.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.enumStatus.Status;
+import ru.practicum.shareit.booking.exception.BookingConflictException;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingIntervalIndexTest {
+    @Mock
+    private BookingRepository bookingRepository;
+
+    private BookingIntervalIndex index;
+    private Item item;
+    private LocalDateTime now;
+
+    @BeforeEach
+    public void setUp() {
+        index = new BookingIntervalIndex(bookingRepository);
+        item = Item.builder().id(1).build();
+        now = LocalDateTime.now();
+    }
+
+    @Test
+    public void reserveWhenWindowOverlapsStoredBookingThrowException() {
+        when(bookingRepository.findAllByItemIdAndStatusIn(1, BookingIntervalIndex.BLOCKING_STATUSES))
+                .thenReturn(List.of(booking(1, now.plusDays(1), now.plusDays(3))));
+
+        assertFalse(reserves(2, 0, now.plusDays(2), now.plusDays(4)));
+        assertFalse(reserves(3, 0, now, now.plusDays(5)));
+        assertTrue(reserves(4, 0, now, now.plusDays(1)));
+        assertTrue(reserves(5, 1, now.plusDays(3), now.plusDays(4)));
+    }
+
+    @Test
+    public void reserveWhenStoredBookingsOverlapEachOtherThrowExceptionInsideEachOfThem() {
+        when(bookingRepository.findAllByItemIdAndStatusIn(1, BookingIntervalIndex.BLOCKING_STATUSES))
+                .thenReturn(List.of(booking(1, now.plusDays(1), now.plusDays(10)),
+                        booking(2, now.plusDays(2), now.plusDays(3))));
+
+        assertFalse(reserves(3, 0, now.plusDays(5), now.plusDays(6)));
+
+        index.release(booking(1, now.plusDays(1), now.plusDays(10)), 0);
+
+        assertTrue(reserves(4, 1, now.plusDays(5), now.plusDays(6)));
+        assertFalse(reserves(5, 2, now.plusDays(2), now.plusDays(4)));
+    }
+
+    @Test
+    public void reserveWhenWindowIsTakenThrowException() {
+        index.reserve(1, 0, now.plusDays(1), now.plusDays(2), () -> booking(1, now.plusDays(1), now.plusDays(2)));
+
+        assertThrows(BookingConflictException.class, () -> index.reserve(1, 1, now.plusHours(30), now.plusDays(3),
+                () -> booking(2, now.plusHours(30), now.plusDays(3))));
+    }
+
+    @Test
+    public void reserveWhenCalledConcurrentlyForSameWindowOnlyOneSucceeds() throws InterruptedException {
+        int threads = 16;
+        ItemLocks itemLocks = new ItemLocks();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger itemVersion = new AtomicInteger();
+        AtomicInteger saved = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+
+        for (int i = 0; i < threads; i++) {
+            int bookingId = i + 1;
+            executor.submit(() -> {
+                start.await();
+                Lock lock = itemLocks.get(1);
+                lock.lock();
+                try {
+                    index.reserve(1, itemVersion.get(), now.plusDays(1), now.plusDays(2), () -> {
+                        saved.incrementAndGet();
+                        itemVersion.incrementAndGet();
+                        return booking(bookingId, now.plusDays(1), now.plusDays(2));
+                    });
+                } catch (BookingConflictException e) {
+                    conflicts.incrementAndGet();
+                } finally {
+                    lock.unlock();
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1, saved.get());
+        assertEquals(threads - 1, conflicts.get());
+    }
+
+    @Test
+    public void reserveWhenItemVersionChangedReloadTimelineFromRepository() {
+        index.reserve(1, 0, now.plusDays(1), now.plusDays(2), () -> booking(1, now.plusDays(1), now.plusDays(2)));
+        when(bookingRepository.findAllByItemIdAndStatusIn(1, BookingIntervalIndex.BLOCKING_STATUSES))
+                .thenReturn(List.of(booking(2, now.plusDays(5), now.plusDays(6))));
+
+        assertTrue(reserves(3, 7, now.plusDays(1), now.plusDays(2)));
+        assertFalse(reserves(4, 8, now.plusDays(5), now.plusDays(6)));
+    }
+
+    private boolean reserves(Integer bookingId, Integer version, LocalDateTime start, LocalDateTime end) {
+        try {
+            index.reserve(1, version, start, end, () -> booking(bookingId, start, end));
+            return true;
+        } catch (BookingConflictException e) {
+            return false;
+        }
+    }
+
+    private Booking booking(Integer id, LocalDateTime start, LocalDateTime end) {
+        return Booking.builder()
+                .id(id)
+                .item(item)
+                .start(start)
+                .end(end)
+                .status(Status.WAITING)
+                .build();
+    }
+}
@@ -0,0 +1,139 @@
+package ru.practicum.shareit.booking.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.enumStatus.Status;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemBookingPointersTest {
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private ItemRepository itemRepository;
+
+    private ItemBookingPointers pointers;
+    private Item item;
+    private LocalDateTime now;
+
+    @BeforeEach
+    public void setUp() {
+        pointers = new ItemBookingPointers(bookingRepository, itemRepository, new ItemLocks(),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        item = Item.builder().id(1).build();
+        now = LocalDateTime.now();
+    }
+
+    @Test
+    public void addedWhenBookingEndsBeforeCurrentNextReplaceNext() {
+        Booking last = booking(1, now.minusDays(3), now.minusDays(2));
+        Booking next = booking(2, now.plusDays(5), now.plusDays(6));
+        Booking added = booking(3, now.plusDays(1), now.plusDays(2));
+        item.setLastBooking(last);
+        item.setNextBooking(next);
+
+        pointers.added(item, added, now);
+
+        assertSame(last, item.getLastBooking());
+        assertSame(added, item.getNextBooking());
+    }
+
+    @Test
+    public void addedWhenBookingEndsAfterCurrentNextKeepPointers() {
+        Booking next = booking(2, now.plusDays(1), now.plusDays(2));
+        item.setNextBooking(next);
+
+        pointers.added(item, booking(3, now.plusDays(5), now.plusDays(6)), now);
+
+        assertNull(item.getLastBooking());
+        assertSame(next, item.getNextBooking());
+    }
+
+    @Test
+    public void addedWhenBookingAlreadyStartedAndEndsLaterReplaceLast() {
+        Booking last = booking(1, now.minusDays(3), now.minusDays(2));
+        Booking added = booking(3, now.minusDays(1), now.plusDays(1));
+        item.setLastBooking(last);
+
+        pointers.added(item, added, now);
+
+        assertSame(added, item.getLastBooking());
+        assertNull(item.getNextBooking());
+    }
+
+    @Test
+    public void removedWhenBookingIsNextRecalculatePointers() {
+        Booking last = booking(1, now.minusDays(3), now.minusDays(2));
+        Booking next = booking(2, now.plusDays(1), now.plusDays(2));
+        Booking following = booking(3, now.plusDays(5), now.plusDays(6));
+        item.setLastBooking(last);
+        item.setNextBooking(next);
+        when(bookingRepository.findFirstByItemIdAndStartBeforeAndStatusNotOrderByEndDesc(1, now, Status.REJECTED))
+                .thenReturn(Optional.of(last));
+        when(bookingRepository.findFirstByItemIdAndStartAfterAndStatusNotOrderByEndAsc(1, now, Status.REJECTED))
+                .thenReturn(Optional.of(following));
+
+        pointers.removed(item, next, now);
+
+        assertSame(last, item.getLastBooking());
+        assertSame(following, item.getNextBooking());
+    }
+
+    @Test
+    public void removedWhenBookingIsNotReferencedKeepPointers() {
+        Booking next = booking(2, now.plusDays(1), now.plusDays(2));
+        item.setNextBooking(next);
+
+        pointers.removed(item, booking(3, now.plusDays(5), now.plusDays(6)), now);
+
+        assertSame(next, item.getNextBooking());
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    public void rollForwardWhenNextBookingStartedMoveItToLast() {
+        Booking started = booking(2, now.minusHours(1), now.plusDays(1));
+        item.setNextBooking(started);
+        when(itemRepository.findIdsWithStartedNextBooking(any())).thenReturn(List.of(1));
+        when(itemRepository.findById(1)).thenReturn(Optional.of(item));
+        when(bookingRepository.findFirstByItemIdAndStartBeforeAndStatusNotOrderByEndDesc(any(), any(), any()))
+                .thenReturn(Optional.of(started));
+        when(bookingRepository.findFirstByItemIdAndStartAfterAndStatusNotOrderByEndAsc(any(), any(), any()))
+                .thenReturn(Optional.empty());
+
+        pointers.rollForward();
+
+        assertSame(started, item.getLastBooking());
+        assertNull(item.getNextBooking());
+    }
+
+    private Booking booking(Integer id, LocalDateTime start, LocalDateTime end) {
+        return Booking.builder()
+                .id(id)
+                .item(item)
+                .start(start)
+                .end(end)
+                .status(Status.APPROVED)
+                .build();
+    }
+}
@@ -1,23 +1,37 @@
 package ru.practicum.shareit.booking.repository;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.jdbc.Sql;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.enumStatus.BookingRole;
+import ru.practicum.shareit.booking.enumStatus.BookingState;
 import ru.practicum.shareit.booking.enumStatus.Status;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingCursor;
+import ru.practicum.shareit.booking.model.BookingSearch;
 import ru.practicum.shareit.item.repository.ItemRepository;
 
+import javax.persistence.EntityManager;
 import javax.transaction.Transactional;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @Transactional
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 @Sql(value = {"/set-up-before.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
 @Sql(value = {"/set-up-after.sql"}, executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
 public class BookingRepositoryIntegrationTest {
@@ -27,6 +41,9 @@ public class BookingRepositoryIntegrationTest {
     @Autowired
     private ItemRepository itemRepository;
 
+    @Autowired
+    private EntityManager entityManager;
+
     private int userId;
     private int ownerId;
     private PageRequest defaultPageRequest;
@@ -41,8 +58,8 @@ public class BookingRepositoryIntegrationTest {
     }
 
     @Test
-    public void findAllByUserUserIdOrderByEndTimeDescWhenFoundTwoBookingsReturnFourBookings() {
-        List<Booking> bookings = bookingRepository.findAllByBookerIdOrderByEndDesc(userId, defaultPageRequest);
+    public void searchWhenBookerStateIsAllReturnFourBookingsOrderedByEndDesc() {
+        List<Booking> bookings = bookingRepository.search(search(BookingRole.BOOKER, BookingState.ALL, userId));
 
         assertEquals(4, bookings.size());
         assertEquals(1, bookings.get(3).getId());
@@ -52,138 +69,178 @@ public class BookingRepositoryIntegrationTest {
     }
 
     @Test
-    public void findAllByUserUserIdOrderByEndTimeDescWhenBookingsNotFoundReturnEmptyList() {
+    public void searchWhenBookerDoesntHaveBookingsReturnEmptyList() {
         int userIdWithoutBookings = 1;
 
-        List<Booking> bookings = bookingRepository.findAllByBookerIdOrderByEndDesc(userIdWithoutBookings, defaultPageRequest);
+        List<Booking> bookings = bookingRepository.search(search(BookingRole.BOOKER, BookingState.ALL,
+                userIdWithoutBookings));
 
         assertEquals(0, bookings.size());
     }
 
     @Test
-    public void findAllBookingByOwnerIdWhenInvokedMethodReturnFourBookings() {
-        List<Booking> bookings = bookingRepository.findBookingByUserId(ownerId, defaultPageRequest);
+    public void searchWhenOwnerStateIsAllReturnFourBookingsOrderedByStartDesc() {
+        List<Booking> bookings = bookingRepository.search(search(BookingRole.OWNER, BookingState.ALL, ownerId));
 
         assertEquals(4, bookings.size());
+        assertEquals(4, bookings.get(0).getId());
+        assertEquals(1, bookings.get(3).getId());
     }
 
     @Test
-    public void findAllBookingByOwnerIdWhenOwnerDoesntHaveBookingsReturnEmptyList() {
+    public void searchWhenOwnerDoesntHaveBookingsReturnEmptyList() {
         int ownerIdWithoutBookings = 2;
 
-        List<Booking> bookings = bookingRepository.findBookingByUserId(ownerIdWithoutBookings, defaultPageRequest);
+        List<Booking> bookings = bookingRepository.search(search(BookingRole.OWNER, BookingState.ALL,
+                ownerIdWithoutBookings));
 
         assertEquals(0, bookings.size());
     }
 
     @Test
-    public void findAllByUserUserIdAndStartTimeIsBeforeAndEndTimeIsAfterOrderByEndTimeDescWhenInvokedMethodReturnOneBooking() {
-        List<Booking> bookings = bookingRepository
-                .findAllByBookerIdAndStartIsBeforeAndEndIsAfterOrderByEndDesc(userId,
-                        now, now, defaultPageRequest);
+    public void searchWhenBookerStateIsCurrentReturnOneBooking() {
+        List<Booking> bookings = bookingRepository.search(search(BookingRole.BOOKER, BookingState.CURRENT, userId));
 
         assertEquals(1, bookings.size());
     }
 
     @Test
-    public void findAllByUserUserIdAndStartTimeIsAfterOrderByEndTimeDescWhenInvokedMethodReturnTwoBookings() {
-        List<Booking> bookings = bookingRepository
-                .findAllByBookerIdAndStartIsAfterOrderByEndDesc(userId, now, defaultPageRequest);
+    public void searchWhenBookerStateIsFutureReturnTwoBookings() {
+        List<Booking> bookings = bookingRepository.search(search(BookingRole.BOOKER, BookingState.FUTURE, userId));
 
         assertEquals(2, bookings.size());
     }
 
     @Test
-    public void findAllByUserUserIdAndStartTimeIsAfterAndStatusOrderByEndTimeDescWhenStatusIsApprovedReturnOneBooking() {
-        List<Booking> bookings = bookingRepository
-                .findAllByBookerIdAndStartIsAfterAndStatusOrderByEndDesc(userId, now, Status.APPROVED, defaultPageRequest);
+    public void searchWhenBookerStateIsWaitingReturnEmptyList() {
+        List<Booking> bookings = bookingRepository.search(search(BookingRole.BOOKER, BookingState.WAITING, userId));
 
-        assertEquals(1, bookings.size());
+        assertEquals(0, bookings.size());
     }
 
     @Test
-    public void findAllByUserUserIdAndStartTimeIsAfterAndStatusOrderByEndTimeDescWhenStatusIsCanceledReturnOneBooking() {
-        List<Booking> bookings = bookingRepository
-                .findAllByBookerIdAndStartIsAfterAndStatusOrderByEndDesc(userId, now, Status.CANCELED, defaultPageRequest);
+    public void searchWhenBookerStateIsRejectedReturnEmptyList() {
+        List<Booking> bookings = bookingRepository.search(search(BookingRole.BOOKER, BookingState.REJECTED, userId));
 
-        assertEquals(1, bookings.size());
+        assertEquals(0, bookings.size());
     }
 
     @Test
-    public void findAllByItemUserUserIdAndStartTimeIsAfterAndStatusOrderByEndTimeDescWhenStatusIsApprovedReturnOneBookings() {
-        List<Booking> bookings = bookingRepository
-                .findAllByItemOwnerIdAndStartIsAfterAndStatusOrderByEndDesc(ownerId, now, Status.APPROVED, defaultPageRequest);
+    public void searchWhenBookerStateIsPastReturnOneBooking() {
+        List<Booking> bookings = bookingRepository.search(search(BookingRole.BOOKER, BookingState.PAST, userId));
 
         assertEquals(1, bookings.size());
     }
 
     @Test
-    public void findAllByUserUserIdAndStatusOrderByEndTimeDescWhenInvokedMethodReturnThreeBookings() {
-        List<Booking> bookings = bookingRepository
-                .findAllByBookerIdAndStatusOrderByEndDesc(userId, Status.APPROVED, defaultPageRequest);
+    public void existsByBookerIdAndItemIdAndStatusAndEndBeforeWhenBookingFinishedAndApprovedReturnTrue() {
+        assertTrue(bookingRepository.existsByBookerIdAndItemIdAndStatusAndEndBefore(userId, 1, Status.APPROVED, now));
+    }
 
-        assertEquals(3, bookings.size());
+    @Test
+    public void existsByBookerIdAndItemIdAndStatusAndEndBeforeWhenUserDidNotBookTheItemReturnFalse() {
+        assertFalse(bookingRepository.existsByBookerIdAndItemIdAndStatusAndEndBefore(userId, 2, Status.APPROVED, now));
+        assertFalse(bookingRepository.existsByBookerIdAndItemIdAndStatusAndEndBefore(ownerId, 1, Status.APPROVED, now));
     }
 
     @Test
-    public void findAllByUserUserIdAndEndTimeIsBeforeOrderByEndTimeDescWhenInvokedMethodReturnOneBooking() {
-        List<Booking> bookings = bookingRepository
-                .findAllByBookerIdAndEndIsBeforeOrderByEndDesc(userId, now, defaultPageRequest);
+    public void searchWhenOwnerStateIsCurrentReturnOneBooking() {
+        List<Booking> bookings = bookingRepository.search(search(BookingRole.OWNER, BookingState.CURRENT, ownerId));
 
         assertEquals(1, bookings.size());
     }
 
     @Test
-    public void findAllByUserUserIdAndEndTimeIsBeforeOrderByEndTimeDescWhenInvokedMethodWithoutPageRequestReturnOneBooking() {
-        List<Booking> bookings = bookingRepository
-                .findAllByBookerIdAndEndIsBeforeOrderByEndDesc(userId, now);
+    public void searchWhenOwnerStateIsFutureReturnTwoBookings() {
+        List<Booking> bookings = bookingRepository.search(search(BookingRole.OWNER, BookingState.FUTURE, ownerId));
 
-        assertEquals(1, bookings.size());
+        assertEquals(2, bookings.size());
     }
 
     @Test
-    public void findAllByItemUserUserIdAndStartTimeIsBeforeAndEndTimeIsAfterOrderByEndTimeDesc() {
-        List<Booking> bookings = bookingRepository
-                .findAllByItemOwnerIdAndStartIsBeforeAndEndIsAfterOrderByEndDesc(ownerId, now, now, defaultPageRequest);
+    public void searchWhenOwnerStateIsPastReturnOneBooking() {
+        List<Booking> bookings = bookingRepository.search(search(BookingRole.OWNER, BookingState.PAST, ownerId));
 
         assertEquals(1, bookings.size());
     }
 
     @Test
-    public void findAllByItemUserUserIdAndStatusOrderByEndTimeDescWhenStatusIsApprovedReturnThreeBookings() {
-        List<Booking> bookings = bookingRepository
-                .findAllByItemOwnerIdAndStatusOrderByEndDesc(ownerId, Status.APPROVED, defaultPageRequest);
+    public void searchWhenPageIsSmallerThanResultReturnRequestedPage() {
+        BookingSearch search = search(BookingRole.BOOKER, BookingState.ALL, userId);
+        search.setPage(PageRequest.of(1, 2));
+
+        List<Booking> bookings = bookingRepository.search(search);
+
+        assertEquals(2, bookings.size());
+        assertEquals(3, bookings.get(0).getId());
+        assertEquals(1, bookings.get(1).getId());
+    }
+
+    @Test
+    public void searchWhenBookingsAreMappedToDtoExecuteSingleStatement() {
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        entityManager.clear();
+        statistics.clear();
 
-        assertEquals(3, bookings.size());
+        List<BookingDto> bookings = BookingMapper.toBookingDtoList(bookingRepository.search(search(BookingRole.OWNER,
+                BookingState.ALL, ownerId)));
+
+        assertEquals(4, bookings.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
     }
 
     @Test
-    public void findAllByItemUserUserIdAndStatusOrderByEndTimeDescWhenStatusIsCanceledReturnOneBooking() {
-        List<Booking> bookings = bookingRepository
-                .findAllByItemOwnerIdAndStatusOrderByEndDesc(ownerId, Status.CANCELED, defaultPageRequest);
+    public void findAllByItemIdAndStatusInWhenItemHasBlockingBookingsReturnOnlyThem() {
+        List<Booking> bookings = bookingRepository.findAllByItemIdAndStatusIn(1, BookingIntervalIndex.BLOCKING_STATUSES);
 
-        assertEquals(1, bookings.size());
+        assertEquals(List.of(1, 2, 3), bookings.stream().map(Booking::getId).sorted().collect(Collectors.toList()));
     }
 
     @Test
-    public void findAllByItemUserUserIdAndEndTimeIsBeforeOrderByEndTimeDescWhenInvokedMethodReturnOneBooking() {
-        List<Booking> bookings = bookingRepository
-                .findAllByItemOwnerIdAndEndIsBeforeOrderByEndDesc(ownerId, now, defaultPageRequest);
+    public void findAllByItemIdAndStatusInWhenItemDoesntHaveBookingsReturnEmptyList() {
+        List<Booking> bookings = bookingRepository.findAllByItemIdAndStatusIn(2, BookingIntervalIndex.BLOCKING_STATUSES);
 
-        assertEquals(1, bookings.size());
+        assertEquals(0, bookings.size());
     }
 
     @Test
-    public void findAllByItemItemIdWhenMethodInvokedReturnFourBookings() {
-        List<Booking> bookings = bookingRepository.findAllByItemId(1);
+    public void searchWhenKeysetPagesAreWalkedReturnSameOrderAsSingleQuery() {
+        List<Booking> expected = bookingRepository.search(search(BookingRole.OWNER, BookingState.FUTURE, ownerId));
+        List<Booking> walked = new ArrayList<>();
+        BookingCursor after = null;
+        List<Booking> page;
+        do {
+            BookingSearch search = search(BookingRole.OWNER, BookingState.FUTURE, ownerId);
+            search.setKeyset(true);
+            search.setPage(PageRequest.of(0, 1));
+            search.setAfter(after);
+            page = bookingRepository.search(search);
+            walked.addAll(page);
+            if (!page.isEmpty()) {
+                after = new BookingCursor(page.get(0).getEnd(), page.get(0).getId());
+            }
+        } while (!page.isEmpty());
 
-        assertEquals(4, bookings.size());
+        assertEquals(expected, walked);
     }
 
     @Test
-    public void findAllByItemItemIdWhenItemDoesntHaveBookingsReturnEmptyList() {
-        List<Booking> bookings = bookingRepository.findAllByItemId(2);
+    public void searchWhenOwnerStateIsAllInKeysetModeOrderByEndDesc() {
+        BookingSearch search = search(BookingRole.OWNER, BookingState.ALL, ownerId);
+        search.setKeyset(true);
 
-        assertEquals(0, bookings.size());
+        List<Booking> bookings = bookingRepository.search(search);
+
+        assertEquals(List.of(4, 2, 3, 1), bookings.stream().map(Booking::getId).collect(Collectors.toList()));
+    }
+
+    private BookingSearch search(BookingRole role, BookingState state, Integer userId) {
+        return BookingSearch.builder()
+                .role(role)
+                .state(state)
+                .userId(userId)
+                .now(now)
+                .page(defaultPageRequest)
+                .build();
     }
 }
@@ -0,0 +1,127 @@
+package ru.practicum.shareit.booking.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.enumStatus.Status;
+import ru.practicum.shareit.booking.exception.BookingConflictException;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+public class BookingServiceConcurrencyTest {
+    private static final int THREADS = 64;
+    private static final int ATTEMPTS_PER_THREAD = 10;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User owner;
+    private Item item;
+    private List<User> bookers;
+
+    @BeforeEach
+    public void setUp() {
+        owner = userRepository.save(User.builder().name("Owner").email("owner@stress.ru").build());
+        item = itemRepository.save(Item.builder()
+                .name("Дрель")
+                .description("Популярная дрель")
+                .available(true)
+                .owner(owner)
+                .build());
+        bookers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            bookers.add(userRepository.save(User.builder().name("Booker " + i).email("booker" + i + "@stress.ru").build()));
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        bookingRepository.deleteAll(bookingRepository.findAllByItemIdAndStatusIn(item.getId(), EnumSet.allOf(Status.class)));
+        itemRepository.deleteById(item.getId());
+        userRepository.deleteAll(bookers);
+        userRepository.deleteById(owner.getId());
+    }
+
+    @Test
+    public void createBookingWhenOneItemIsHammeredFromManyThreadsApprovedBookingsDoNotOverlap()
+            throws InterruptedException, ExecutionException {
+        LocalDateTime base = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger created = new AtomicInteger();
+
+        List<Future<Object>> workers = new ArrayList<>();
+        for (User booker : bookers) {
+            workers.add(executor.submit(() -> {
+                Random random = new Random(booker.getId());
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    BookingDto bookingDto = new BookingDto();
+                    bookingDto.setItemId(item.getId());
+                    bookingDto.setStart(base.plusHours(random.nextInt(200)));
+                    bookingDto.setEnd(bookingDto.getStart().plusHours(1 + random.nextInt(12)));
+                    try {
+                        BookingDto booking = bookingService.createBooking(bookingDto, booker.getId());
+                        bookingService.setApprove(booking.getId(), true, owner.getId());
+                        created.incrementAndGet();
+                    } catch (BookingConflictException e) {
+                        // окно уже занято другим потоком
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+        for (Future<Object> worker : workers) {
+            worker.get();
+        }
+
+        List<Booking> approved = bookingRepository.findAllByItemIdAndStatusIn(item.getId(), EnumSet.of(Status.APPROVED)).stream()
+                .sorted(Comparator.comparing(Booking::getStart))
+                .collect(Collectors.toList());
+
+        assertTrue(created.get() > 0);
+        for (int i = 1; i < approved.size(); i++) {
+            assertFalse(approved.get(i).getStart().isBefore(approved.get(i - 1).getEnd()),
+                    "Пересекаются бронирования " + approved.get(i - 1).getId() + " и " + approved.get(i).getId());
+        }
+    }
+}
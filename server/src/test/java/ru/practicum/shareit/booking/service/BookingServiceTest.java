@@ -5,16 +5,25 @@ import lombok.experimental.FieldDefaults;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.enumStatus.Status;
+import ru.practicum.shareit.booking.exception.BookingConflictException;
 import ru.practicum.shareit.booking.exception.NotFoundBookingException;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.index.ItemBookingPointers;
+import ru.practicum.shareit.booking.index.ItemLocks;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingCursor;
+import ru.practicum.shareit.booking.model.BookingSearch;
 import ru.practicum.shareit.booking.model.RequestBooking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.cache.ItemViewCache;
 import ru.practicum.shareit.item.exception.NotFoundItemException;
 import ru.practicum.shareit.item.exception.NotValidationException;
 import ru.practicum.shareit.item.model.Item;
@@ -29,7 +38,11 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -44,7 +57,6 @@ public class BookingServiceTest {
     @Mock
     UserRepository userRepository;
 
-    @InjectMocks
     BookingServiceImpl bookingService;
 
     int userId;
@@ -60,6 +72,9 @@ public class BookingServiceTest {
 
     @BeforeEach
     public void setUp() {
+        bookingService = new BookingServiceImpl(bookingRepository, userRepository, itemRepository,
+                new BookingIntervalIndex(bookingRepository), new ItemLocks(), mock(ItemBookingPointers.class),
+                mock(ItemViewCache.class), new TransactionTemplate(mock(PlatformTransactionManager.class)));
         now = LocalDateTime.now();
         userId = 1;
         itemId = 1;
@@ -105,16 +120,35 @@ public class BookingServiceTest {
     @Test
     public void addBookingWhenInvokedMethodReturnBooking() {
         when(userRepository.findById(userId)).thenReturn(Optional.of(booker));
-        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
+        when(itemRepository.findForBookingById(itemId)).thenReturn(Optional.of(item));
         when(bookingRepository.save(booking)).thenReturn(booking);
 
         assertEquals(BookingMapper.toBookingDto(booking), bookingService.createBooking(BookingMapper.toBookingDto(booking), userId));
     }
 
+    @Test
+    public void addBookingWhenItemAlreadyBookedForPeriodThrowException() {
+        Booking existing = Booking.builder()
+                .id(2)
+                .item(item)
+                .booker(owner)
+                .status(Status.WAITING)
+                .start(now.plusHours(1))
+                .end(now.plusHours(3))
+                .build();
+
+        when(userRepository.findById(userId)).thenReturn(Optional.of(booker));
+        when(itemRepository.findForBookingById(itemId)).thenReturn(Optional.of(item));
+        when(bookingRepository.findAllByItemIdAndStatusIn(itemId, BookingIntervalIndex.BLOCKING_STATUSES))
+                .thenReturn(List.of(existing));
+
+        assertThrows(BookingConflictException.class, () -> bookingService.createBooking(BookingMapper.toBookingDto(booking), userId));
+    }
+
     @Test
     public void addBookingWhenBookerIsOwnerTheItemThrowException() {
         when(userRepository.findById(ownerId)).thenReturn(Optional.of(owner));
-        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
+        when(itemRepository.findForBookingById(itemId)).thenReturn(Optional.of(item));
 
         assertThrows(NotFoundItemException.class, () -> bookingService.createBooking(BookingMapper.toBookingDto(booking), ownerId));
     }
@@ -124,7 +158,7 @@ public class BookingServiceTest {
         item.setAvailable(false);
 
         when(userRepository.findById(userId)).thenReturn(Optional.of(booker));
-        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
+        when(itemRepository.findForBookingById(itemId)).thenReturn(Optional.of(item));
 
         assertThrows(NotValidationException.class, () -> bookingService.createBooking(BookingMapper.toBookingDto(booking), userId));
     }
@@ -135,13 +169,28 @@ public class BookingServiceTest {
         booking.setEnd(LocalDateTime.now().plusHours(1));
 
         when(userRepository.findById(userId)).thenReturn(Optional.of(booker));
-        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
+        when(itemRepository.findForBookingById(itemId)).thenReturn(Optional.of(item));
 
         assertThrows(NotValidationException.class, () -> bookingService.createBooking(BookingMapper.toBookingDto(booking), userId));
     }
 
+    @Test
+    public void addBookingWhenStartTimeInThePastThrowExceptionBeforeOverlapCheck() {
+        booking.setStart(LocalDateTime.now().minusDays(1));
+        booking.setEnd(LocalDateTime.now().plusDays(1));
+
+        when(userRepository.findById(userId)).thenReturn(Optional.of(booker));
+        when(itemRepository.findForBookingById(itemId)).thenReturn(Optional.of(item));
+
+        assertThrows(NotValidationException.class, () -> bookingService.createBooking(BookingMapper.toBookingDto(booking), userId));
+        verify(bookingRepository, never()).findAllByItemIdAndStatusIn(any(), any());
+        verify(bookingRepository, never()).save(any());
+    }
+
     @Test
     public void deleteBookingWhenInvokedMethodReturnBooking() {
+        when(bookingRepository.findItemIdById(bookingId)).thenReturn(Optional.of(itemId));
+        when(itemRepository.findForBookingById(itemId)).thenReturn(Optional.of(item));
         when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
 
         assertEquals(BookingMapper.toBookingDto(booking), bookingService.removeBooking(bookingId, userId));
@@ -149,6 +198,8 @@ public class BookingServiceTest {
 
     @Test
     public void deleteBookingWhenUserIsNotTheOwnerTheBookingThrowException() {
+        when(bookingRepository.findItemIdById(bookingId)).thenReturn(Optional.of(itemId));
+        when(itemRepository.findForBookingById(itemId)).thenReturn(Optional.of(item));
         when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
 
         assertThrows(NotFoundUserException.class, () -> bookingService.removeBooking(bookingId, ownerId));
@@ -156,14 +207,14 @@ public class BookingServiceTest {
 
     @Test
     public void deleteBookingWhenBookingNotFoundThrowException() {
-        when(bookingRepository.findById(bookingId)).thenThrow(NotFoundBookingException.class);
+        when(bookingRepository.findItemIdById(bookingId)).thenReturn(Optional.empty());
 
         assertThrows(NotFoundBookingException.class, () -> bookingService.removeBooking(bookingId, userId));
     }
 
     @Test
     public void getBookingByIdWhenBookingNotFoundThrowException() {
-        when(bookingRepository.findById(bookingId)).thenThrow(NotFoundBookingException.class);
+        when(bookingRepository.findItemIdById(bookingId)).thenReturn(Optional.empty());
 
         assertThrows(NotFoundBookingException.class, () -> bookingService.removeBooking(bookingId, userId));
     }
@@ -177,6 +228,8 @@ public class BookingServiceTest {
 
     @Test
     public void setApproveWhenBookingAlreadyApprovedThrowException() {
+        when(bookingRepository.findItemIdById(bookingId)).thenReturn(Optional.of(itemId));
+        when(itemRepository.findForBookingById(itemId)).thenReturn(Optional.of(item));
         when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
 
         assertThrows(NotValidationException.class, () -> bookingService.setApprove(bookingId, true, ownerId));
@@ -186,6 +239,8 @@ public class BookingServiceTest {
     public void setApproveWhenUserNotTheOwnerTheItemThrowException() {
         booking.setStatus(Status.WAITING);
 
+        when(bookingRepository.findItemIdById(bookingId)).thenReturn(Optional.of(itemId));
+        when(itemRepository.findForBookingById(itemId)).thenReturn(Optional.of(item));
         when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
 
         assertThrows(NotFoundItemException.class, () -> bookingService.setApprove(bookingId, true, userId));
@@ -195,6 +250,8 @@ public class BookingServiceTest {
     public void setApproveWhenInvokedMethodReturnBooking() {
         booking.setStatus(Status.WAITING);
 
+        when(bookingRepository.findItemIdById(bookingId)).thenReturn(Optional.of(itemId));
+        when(itemRepository.findForBookingById(itemId)).thenReturn(Optional.of(item));
         when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
 
         BookingDto foundBooking = bookingService.setApprove(bookingId, true, ownerId);
@@ -205,7 +262,7 @@ public class BookingServiceTest {
 
     @Test
     public void setApproveWhenBookingNotFoundThrowException() {
-        when(bookingRepository.findById(bookingId)).thenThrow(NotFoundBookingException.class);
+        when(bookingRepository.findItemIdById(bookingId)).thenReturn(Optional.empty());
 
         assertThrows(NotFoundBookingException.class, () -> bookingService.setApprove(bookingId, true, ownerId));
     }
@@ -214,6 +271,8 @@ public class BookingServiceTest {
     public void setApproveWhenApprovedFalseReturnBooking() {
         booking.setStatus(Status.WAITING);
 
+        when(bookingRepository.findItemIdById(bookingId)).thenReturn(Optional.of(itemId));
+        when(itemRepository.findForBookingById(itemId)).thenReturn(Optional.of(item));
         when(bookingRepository.findById(bookingId)).thenReturn(Optional.of(booking));
 
         BookingDto returnedBooking = bookingService.setApprove(bookingId, false, ownerId);
@@ -229,7 +288,7 @@ public class BookingServiceTest {
         requestBooking.setState("ALL");
 
         when(userRepository.findById(userId)).thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllByBookerIdOrderByEndDesc(any(), any())).thenReturn(bookings);
+        when(bookingRepository.search(any())).thenReturn(bookings);
 
         assertEquals(foundBookings, bookingService.getBookingByUser(requestBooking));
     }
@@ -241,8 +300,7 @@ public class BookingServiceTest {
         requestBooking.setState("CURRENT");
 
         when(userRepository.findById(userId)).thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllByBookerIdAndStartIsBeforeAndEndIsAfterOrderByEndDesc(any(),
-                any(), any(), any())).thenReturn(bookings);
+        when(bookingRepository.search(any())).thenReturn(bookings);
 
         assertEquals(foundBookings, bookingService.getBookingByUser(requestBooking));
     }
@@ -263,7 +321,7 @@ public class BookingServiceTest {
         requestBooking.setState("Past");
 
         when(userRepository.findById(userId)).thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllByBookerIdAndEndIsBeforeOrderByEndDesc(any(), any(), any())).thenReturn(bookings);
+        when(bookingRepository.search(any())).thenReturn(bookings);
 
         assertEquals(foundBookings, bookingService.getBookingByUser(requestBooking));
     }
@@ -284,7 +342,7 @@ public class BookingServiceTest {
         requestBooking.setState("Future");
 
         when(userRepository.findById(userId)).thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllByBookerIdAndStartIsAfterOrderByEndDesc(any(), any(), any())).thenReturn(bookings);
+        when(bookingRepository.search(any())).thenReturn(bookings);
 
         assertEquals(foundBookings, bookingService.getBookingByUser(requestBooking));
     }
@@ -305,7 +363,7 @@ public class BookingServiceTest {
         requestBooking.setState("Waiting");
 
         when(userRepository.findById(userId)).thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllByBookerIdAndStartIsAfterAndStatusOrderByEndDesc(any(), any(), any(), any())).thenReturn(bookings);
+        when(bookingRepository.search(any())).thenReturn(bookings);
 
         assertEquals(foundBookings, bookingService.getBookingByUser(requestBooking));
     }
@@ -326,7 +384,7 @@ public class BookingServiceTest {
         requestBooking.setState("REJECTED");
 
         when(userRepository.findById(userId)).thenReturn(Optional.of(booker));
-        when(bookingRepository.findAllByBookerIdAndStatusOrderByEndDesc(any(), any(), any())).thenReturn(bookings);
+        when(bookingRepository.search(any())).thenReturn(bookings);
 
         assertEquals(foundBookings, bookingService.getBookingByUser(requestBooking));
     }
@@ -348,7 +406,7 @@ public class BookingServiceTest {
         requestBooking.setUserId(ownerId);
 
         when(userRepository.findById(ownerId)).thenReturn(Optional.of(owner));
-        when(bookingRepository.findBookingByUserId(any(), any())).thenReturn(bookings);
+        when(bookingRepository.search(any())).thenReturn(bookings);
 
         assertEquals(foundBookings, bookingService.getBookingForOwner(requestBooking));
     }
@@ -361,8 +419,7 @@ public class BookingServiceTest {
         requestBooking.setUserId(ownerId);
 
         when(userRepository.findById(ownerId)).thenReturn(Optional.of(owner));
-        when(bookingRepository.findAllByItemOwnerIdAndStartIsBeforeAndEndIsAfterOrderByEndDesc(any(),
-                any(), any(), any())).thenReturn(bookings);
+        when(bookingRepository.search(any())).thenReturn(bookings);
 
         assertEquals(foundBookings, bookingService.getBookingForOwner(requestBooking));
     }
@@ -384,7 +441,7 @@ public class BookingServiceTest {
         requestBooking.setUserId(ownerId);
 
         when(userRepository.findById(ownerId)).thenReturn(Optional.of(owner));
-        when(bookingRepository.findAllByItemOwnerIdAndEndIsBeforeOrderByEndDesc(any(), any(), any())).thenReturn(bookings);
+        when(bookingRepository.search(any())).thenReturn(bookings);
 
         assertEquals(foundBookings, bookingService.getBookingForOwner(requestBooking));
     }
@@ -406,7 +463,7 @@ public class BookingServiceTest {
         requestBooking.setUserId(ownerId);
 
         when(userRepository.findById(ownerId)).thenReturn(Optional.of(owner));
-        when(bookingRepository.findAllByItemOwnerIdAndStartIsAfterOrderByEndDesc(any(), any(), any())).thenReturn(bookings);
+        when(bookingRepository.search(any())).thenReturn(bookings);
 
         assertEquals(foundBookings, bookingService.getBookingForOwner(requestBooking));
     }
@@ -428,7 +485,7 @@ public class BookingServiceTest {
         requestBooking.setUserId(ownerId);
 
         when(userRepository.findById(ownerId)).thenReturn(Optional.of(owner));
-        when(bookingRepository.findAllByItemOwnerIdAndStartIsAfterAndStatusOrderByEndDesc(any(), any(), any(), any())).thenReturn(bookings);
+        when(bookingRepository.search(any())).thenReturn(bookings);
 
         assertEquals(foundBookings, bookingService.getBookingForOwner(requestBooking));
     }
@@ -450,7 +507,7 @@ public class BookingServiceTest {
         requestBooking.setUserId(ownerId);
 
         when(userRepository.findById(ownerId)).thenReturn(Optional.of(owner));
-        when(bookingRepository.findAllByItemOwnerIdAndStatusOrderByEndDesc(any(), any(), any())).thenReturn(bookings);
+        when(bookingRepository.search(any())).thenReturn(bookings);
 
         assertEquals(foundBookings, bookingService.getBookingForOwner(requestBooking));
     }
@@ -464,4 +521,34 @@ public class BookingServiceTest {
 
         assertThrows(NotValidationException.class, () -> bookingService.getBookingForOwner(requestBooking));
     }
+
+    @Test
+    public void getBookingForCurrentUserWhenCursorIsPassedSeekAfterIt() {
+        BookingCursor cursor = new BookingCursor(now.plusDays(3), 7);
+        requestBooking.setState("ALL");
+        requestBooking.setFrom(20);
+        requestBooking.setCursor(cursor.encode());
+
+        when(userRepository.findById(userId)).thenReturn(Optional.of(booker));
+        when(bookingRepository.search(any())).thenReturn(List.of(booking));
+
+        bookingService.getBookingByUser(requestBooking);
+
+        ArgumentCaptor<BookingSearch> search = ArgumentCaptor.forClass(BookingSearch.class);
+        verify(bookingRepository).search(search.capture());
+        assertTrue(search.getValue().isKeyset());
+        assertEquals(cursor, search.getValue().getAfter());
+        assertEquals(0, search.getValue().getPage().getOffset());
+    }
+
+    @Test
+    public void getBookingForCurrentUserWhenCursorIsBrokenThrowException() {
+        requestBooking.setState("ALL");
+        requestBooking.setCursor("не курсор");
+
+        when(userRepository.findById(userId)).thenReturn(Optional.of(booker));
+
+        assertThrows(NotValidationException.class, () -> bookingService.getBookingByUser(requestBooking));
+    }
+
 }
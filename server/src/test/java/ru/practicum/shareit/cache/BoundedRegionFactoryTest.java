@@ -0,0 +1,86 @@
+package ru.practicum.shareit.cache;
+
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BoundedRegionFactoryTest {
+    @Test
+    public void maximumSizeWhenRegionHasOwnPropertyUseIt() {
+        BoundedRegionFactory factory = new BoundedRegionFactory();
+        factory.prepareForUse(null, Map.of("shareit.cache.user.maximum-size", "5",
+                "shareit.cache.default.maximum-size", "7"));
+
+        assertEquals(5, factory.maximumSize("user"));
+        assertEquals(7, factory.maximumSize("item"));
+    }
+
+    @Test
+    public void maximumSizeWhenNothingConfiguredUseDefault() {
+        BoundedRegionFactory factory = new BoundedRegionFactory();
+        factory.prepareForUse(null, Map.of());
+
+        assertEquals(10_000, factory.maximumSize("user"));
+        assertEquals(Duration.ofMinutes(10), factory.ttl("user"));
+    }
+
+    @Test
+    public void ttlWhenRegionHasOwnPropertyUseIt() {
+        BoundedRegionFactory factory = new BoundedRegionFactory();
+        factory.prepareForUse(null, Map.of("shareit.cache.item.ttl", "30s",
+                "shareit.cache.default.ttl", "2m"));
+
+        assertEquals(Duration.ofSeconds(30), factory.ttl("item"));
+        assertEquals(Duration.ofMinutes(2), factory.ttl("user"));
+    }
+
+    @Test
+    public void getFromCacheWhenTtlPassedReturnNothing() throws InterruptedException {
+        BoundedStorageAccess storage = new BoundedStorageAccess(2, Duration.ofMillis(1));
+        storage.putIntoCache(1, "first", null);
+
+        Thread.sleep(5);
+
+        assertNull(storage.getFromCache(1, null));
+        assertEquals(0, storage.size());
+    }
+
+    @Test
+    public void timestampsWhenRegionIsFullEvictQueryResults() {
+        BoundedRegionFactory factory = new BoundedRegionFactory();
+        factory.prepareForUse(null, Map.of());
+        StorageAccess queryResults = factory.createQueryResultsRegionStorageAccess("query", null);
+        queryResults.putIntoCache("query", "result", null);
+        BoundedStorageAccess timestamps = factory.timestampsStorage(1);
+        timestamps.putIntoCache("items", 1L, null);
+
+        assertEquals("result", queryResults.getFromCache("query", null));
+
+        timestamps.putIntoCache("users", 2L, null);
+
+        assertEquals(1, timestamps.size());
+        assertNull(queryResults.getFromCache("query", null));
+    }
+
+    @Test
+    public void putIntoCacheWhenRegionIsFullEvictLeastRecentlyReadEntry() {
+        BoundedStorageAccess storage = new BoundedStorageAccess(2, Duration.ofMinutes(5));
+        storage.putIntoCache(1, "first", null);
+        storage.putIntoCache(2, "second", null);
+        storage.getFromCache(1, null);
+
+        storage.putIntoCache(3, "third", null);
+
+        assertEquals(2, storage.size());
+        assertTrue(storage.contains(1));
+        assertFalse(storage.contains(2));
+        assertTrue(storage.contains(3));
+    }
+}
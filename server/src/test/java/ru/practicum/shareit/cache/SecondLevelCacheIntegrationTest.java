@@ -0,0 +1,89 @@
+package ru.practicum.shareit.cache;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.request.model.Request;
+import ru.practicum.shareit.request.repository.RequestRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class SecondLevelCacheIntegrationTest {
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RequestRepository requestRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User user;
+    private Request request;
+
+    @BeforeEach
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        user = userRepository.save(User.builder().name("Cached").email("cached@cache.ru").build());
+        request = requestRepository.save(Request.builder()
+                .description("Нужна дрель")
+                .requestor(user)
+                .timeOfCreation(LocalDateTime.now())
+                .build());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        requestRepository.deleteById(request.getId());
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    public void findUserByIdWhenCalledRepeatedlyServeFromSecondLevelCache() {
+        userRepository.findById(user.getId());
+        statistics.clear();
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(userRepository.findById(user.getId()).isPresent());
+        }
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(3, statistics.getDomainDataRegionStatistics("user").getHitCount());
+    }
+
+    @Test
+    public void findAllByRequestorIdWhenCalledRepeatedlyServeFromQueryCache() {
+        statistics.clear();
+
+        assertEquals(1, requestRepository.findAllByRequestorId(user.getId()).size());
+        assertEquals(1, requestRepository.findAllByRequestorId(user.getId()).size());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    public void findAllByRequestorIdWhenRequestAddedDoNotServeStaleResult() {
+        requestRepository.findAllByRequestorId(user.getId());
+        Request another = requestRepository.save(Request.builder()
+                .description("Нужна стремянка")
+                .requestor(user)
+                .timeOfCreation(LocalDateTime.now())
+                .build());
+
+        assertEquals(2, requestRepository.findAllByRequestorId(user.getId()).size());
+        requestRepository.deleteById(another.getId());
+    }
+}
@@ -0,0 +1,163 @@
+package ru.practicum.shareit.item.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.item.dto.ItemBookDto;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class ItemViewCacheTest {
+    private static final int OWNER_ID = 1;
+    private static final int USER_ID = 2;
+
+    private SimpleMeterRegistry meterRegistry;
+    private MutableClock clock;
+    private ItemViewCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        clock = new MutableClock();
+        cache = new ItemViewCache(meterRegistry, 2, Duration.ofMinutes(5), clock);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    public void getWhenViewIsCachedDoNotCallLoaderAgain() {
+        ItemBookDto first = cache.get(1, USER_ID, () -> load(1, null));
+        ItemBookDto second = cache.get(1, USER_ID, () -> load(1, null));
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("result", "hit").counter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    public void getWhenOwnerAndOtherUserReadKeepSeparateViews() {
+        ItemBookDto publicView = cache.get(1, USER_ID, () -> load(1, null));
+        ItemBookDto ownerView = cache.get(1, OWNER_ID, () -> load(1, null));
+
+        assertSame(publicView, cache.get(1, 3, () -> load(1, null)));
+        assertSame(ownerView, cache.get(1, OWNER_ID, () -> load(1, null)));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void invalidateWhenItemChangedReloadBothViews() {
+        cache.get(1, USER_ID, () -> load(1, null));
+        cache.get(1, OWNER_ID, () -> load(1, null));
+
+        cache.invalidate(1);
+        cache.get(1, USER_ID, () -> load(1, null));
+        cache.get(1, OWNER_ID, () -> load(1, null));
+
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    public void getWhenInvalidatedDuringLoadDoNotCacheLoadedView() {
+        cache.get(1, USER_ID, () -> {
+            cache.invalidate(1);
+            return load(1, null);
+        });
+        cache.get(1, USER_ID, () -> load(1, null));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void getWhenOtherItemInvalidatedDuringLoadCacheLoadedView() {
+        cache.get(1, USER_ID, () -> {
+            cache.invalidate(2);
+            return load(1, null);
+        });
+        cache.get(1, USER_ID, () -> load(1, null));
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void getWhenMaximumSizeExceededEvictLeastRecentlyReadItem() {
+        cache.get(1, USER_ID, () -> load(1, null));
+        cache.get(2, USER_ID, () -> load(2, null));
+        cache.get(1, USER_ID, () -> load(1, null));
+        cache.get(3, USER_ID, () -> load(3, null));
+
+        assertEquals(2, cache.size());
+        assertEquals(1, meterRegistry.get("cache.evictions").counter().count());
+
+        cache.get(1, USER_ID, () -> load(1, null));
+        cache.get(2, USER_ID, () -> load(2, null));
+
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    public void getWhenTtlPassedReloadView() {
+        cache.get(1, USER_ID, () -> load(1, null));
+
+        clock.advance(Duration.ofMinutes(6));
+        cache.get(1, USER_ID, () -> load(1, null));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void getWhenNextBookingStartedReloadOwnerView() {
+        LocalDateTime nextStart = LocalDateTime.now(clock).plusMinutes(1);
+        cache.get(1, OWNER_ID, () -> load(1, nextStart));
+
+        cache.get(1, OWNER_ID, () -> load(1, nextStart));
+        clock.advance(Duration.ofMinutes(2));
+        cache.get(1, OWNER_ID, () -> load(1, nextStart));
+
+        assertEquals(2, loads.get());
+    }
+
+    private ItemBookDto load(Integer itemId, LocalDateTime nextBookingStart) {
+        loads.incrementAndGet();
+        ItemBookDto view = new ItemBookDto(itemId, "Дрель", new UserDto(OWNER_ID, "Owner", "owner@mail.ru"),
+                "Простая дрель", true);
+        if (nextBookingStart != null) {
+            view.setNextBooking(BookingDto.builder().id(1).start(nextBookingStart)
+                    .end(nextBookingStart.plusDays(1)).build());
+        }
+        return view;
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant instant = Instant.parse("2030-01-01T10:00:00Z");
+
+        private void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package ru.practicum.shareit.item.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,16 +16,24 @@ import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemBookDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.index.ItemIndexRefresher;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.List;
 
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.practicum.shareit.constant.Constant.HEADER_NEXT_CURSOR;
 import static ru.practicum.shareit.constant.Constant.HEADER_USER;
 
 @Transactional
@@ -43,6 +52,9 @@ public class ItemControllerIntegrationTest {
     @Autowired
     private ObjectMapper mapper;
 
+    @Autowired
+    private ItemIndexRefresher itemIndexRefresher;
+
     private int userId;
     private int itemId;
     private int newUserId;
@@ -57,12 +69,13 @@ public class ItemControllerIntegrationTest {
 
     @BeforeEach
     public void setUp() {
+        itemIndexRefresher.refresh();
         unknownUserId = 100;
         unknownItemId = 100;
         userId = 1;
         newUserId = 2;
         itemId = 1;
-        commentId = 1;
+        commentId = 1001;
 
         userDto = UserDto.builder()
                 .id(userId)
@@ -272,6 +285,45 @@ public class ItemControllerIntegrationTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @SneakyThrows
+    public void importItemsWhenInvokedCreateItemsAndMakeThemSearchable() {
+        ItemDto ladder = ItemDto.builder().name("Стремянка").description("Высокая стремянка").available(true).build();
+        ItemDto drill = ItemDto.builder().name("Дрель").description("Ударная дрель").available(true).build();
+
+        mvc.perform(post(URL + "/bulk")
+                        .header(HEADER_USER, userId)
+                        .content(mapper.writeValueAsString(List.of(ladder, drill)))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(2)))
+                .andExpect(jsonPath("$[0].row", is(0)))
+                .andExpect(jsonPath("$[0].id", notNullValue()))
+                .andExpect(jsonPath("$[1].row", is(1)))
+                .andExpect(jsonPath("$[1].error", nullValue()));
+
+        mvc.perform(get(URL + "/search")
+                        .header(HEADER_USER, userId)
+                        .param("text", "стремянка"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(1)))
+                .andExpect(jsonPath("$[0].name", is("Стремянка")));
+    }
+
+    @Test
+    @SneakyThrows
+    public void importItemsWhenUserNotFoundReturnStatusIsNotFound() {
+        mvc.perform(post(URL + "/bulk")
+                        .header(HEADER_USER, unknownUserId)
+                        .content(mapper.writeValueAsString(List.of(itemDto)))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     @SneakyThrows
     public void addItemWhenNameIsBlankReturnStatusIsBadRequest() {
@@ -376,6 +428,17 @@ public class ItemControllerIntegrationTest {
                 .andExpect(jsonPath("$[0].available", is(itemDto.getAvailable())));
     }
 
+    @Test
+    @SneakyThrows
+    public void suggestWhenPrefixMatchesAvailableItemsReturnTheirNames() {
+        mvc.perform(get(URL + "/suggest")
+                        .header(HEADER_USER, userId)
+                        .queryParam("prefix", "о"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(1)))
+                .andExpect(jsonPath("$[0]", is("Отвертка")));
+    }
+
     @Test
     @SneakyThrows
     public void addCommentWhenInvokedMethodReturnComment() {
@@ -386,7 +449,7 @@ public class ItemControllerIntegrationTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.id", is(commentId)))
+                .andExpect(jsonPath("$.id", greaterThanOrEqualTo(commentId)))
                 .andExpect(jsonPath("$.authorId", is(newUserId)))
                 .andExpect(jsonPath("$.text", is(commentDto.getText())));
     }
@@ -416,4 +479,79 @@ public class ItemControllerIntegrationTest {
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isBadRequest());
     }
+
+    @Test
+    @SneakyThrows
+    public void addCommentWhenRatedUpdateItemRatingAndPutCommentFirst() {
+        commentDto.setRating(5);
+        int newCommentId = addComment();
+
+        mvc.perform(get(URL + "/{itemId}", itemId)
+                        .header(HEADER_USER, newUserId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rating.count", is(2)))
+                .andExpect(jsonPath("$.rating.sum", is(6)))
+                .andExpect(jsonPath("$.rating.average", is(3.0)))
+                .andExpect(jsonPath("$.rating.histogram", contains(1, 0, 0, 0, 1)))
+                .andExpect(jsonPath("$.comments[0].id", is(newCommentId)))
+                .andExpect(jsonPath("$.comments[1].id", is(2)));
+    }
+
+    @Test
+    @SneakyThrows
+    public void addCommentWhenRatingIsOutOfRangeReturnStatusIsBadRequest() {
+        commentDto.setRating(6);
+
+        mvc.perform(post(URL + "/{itemId}/comment", itemId)
+                        .header(HEADER_USER, newUserId)
+                        .content(mapper.writeValueAsString(commentDto))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @SneakyThrows
+    public void getCommentsWhenPageIsFullReturnCursorOfNextPage() {
+        int newCommentId = addComment();
+
+        mvc.perform(get(URL + "/{itemId}/comments", itemId)
+                        .header(HEADER_USER, newUserId)
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HEADER_NEXT_CURSOR, String.valueOf(newCommentId)))
+                .andExpect(jsonPath("$.length()", is(1)))
+                .andExpect(jsonPath("$[0].id", is(newCommentId)));
+
+        mvc.perform(get(URL + "/{itemId}/comments", itemId)
+                        .header(HEADER_USER, newUserId)
+                        .param("cursor", String.valueOf(newCommentId))
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HEADER_NEXT_CURSOR))
+                .andExpect(jsonPath("$.length()", is(1)))
+                .andExpect(jsonPath("$[0].id", is(2)));
+    }
+
+    @Test
+    @SneakyThrows
+    public void getCommentsWhenItemNotFoundReturnStatusIsNotFound() {
+        mvc.perform(get(URL + "/{itemId}/comments", unknownItemId)
+                        .header(HEADER_USER, userId))
+                .andExpect(status().isNotFound());
+    }
+
+    @SneakyThrows
+    private int addComment() {
+        String response = mvc.perform(post(URL + "/{itemId}/comment", itemId)
+                        .header(HEADER_USER, newUserId)
+                        .content(mapper.writeValueAsString(commentDto))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        return JsonPath.read(response, "$.id");
+    }
 }
@@ -1,29 +1,43 @@
 package ru.practicum.shareit.item.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AccessLevel;
+import lombok.SneakyThrows;
 import lombok.experimental.FieldDefaults;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import ru.practicum.shareit.item.ItemController;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemBookDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemExportDto;
 import ru.practicum.shareit.item.exception.NotFoundItemException;
 import ru.practicum.shareit.item.exception.NotValidationException;
 import ru.practicum.shareit.item.model.RequestItem;
+import ru.practicum.shareit.item.model.SearchSort;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.exception.NotFoundUserException;
+import ru.practicum.shareit.user.service.UserService;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,6 +47,12 @@ public class ItemControllerTest {
     @Mock
     ItemService itemService;
 
+    @Mock
+    UserService userService;
+
+    @Spy
+    ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
     @InjectMocks
     ItemController itemController;
 
@@ -148,7 +168,7 @@ public class ItemControllerTest {
 
         when(itemService.search(requestItem)).thenReturn(items);
 
-        List<ItemDto> foundItems = itemController.searchItem(userId, "text", 0, 10);
+        List<ItemDto> foundItems = itemController.searchItem(userId, "text", 0, 10, "id");
 
         assertEquals(items, foundItems);
         assertEquals(1, foundItems.size());
@@ -161,12 +181,34 @@ public class ItemControllerTest {
 
         when(itemService.search(requestItem)).thenReturn(items);
 
-        List<ItemDto> foundItems = itemController.searchItem(userId, "text", 0, 10);
+        List<ItemDto> foundItems = itemController.searchItem(userId, "text", 0, 10, "id");
 
         assertEquals(items, foundItems);
         assertEquals(0, foundItems.size());
     }
 
+    @Test
+    public void searchWhenSortIsRelevancePassItToService() {
+        List<ItemDto> items = List.of(itemDto);
+        RequestItem requestItem = RequestItem.of(userId, 0, 10, "text", SearchSort.RELEVANCE);
+
+        when(itemService.search(requestItem)).thenReturn(items);
+
+        assertEquals(items, itemController.searchItem(userId, "text", 0, 10, "relevance"));
+    }
+
+    @Test
+    public void searchWhenSortIsUnknownThrowException() {
+        assertThrows(NotValidationException.class, () -> itemController.searchItem(userId, "text", 0, 10, "price"));
+    }
+
+    @Test
+    public void suggestWhenInvokedMethodReturnNames() {
+        when(itemService.suggest("дре", 10)).thenReturn(List.of("Дрель"));
+
+        assertEquals(List.of("Дрель"), itemController.suggest(userId, "дре", 10));
+    }
+
     @Test
     public void addCommentWhenMethodInvokedReturnComment() {
         CommentDto commentDto = new CommentDto(1, userDto, "Name", 1, 1, "text",
@@ -186,4 +228,36 @@ public class ItemControllerTest {
 
         assertThrows(NotValidationException.class, () -> itemController.addComment(commentDto, userId, itemId));
     }
+
+    @Test
+    @SneakyThrows
+    public void exportItemsWhenMethodInvokedWriteOneJsonLinePerItem() {
+        ItemExportDto screwdriver = new ItemExportDto(1, "Отвертка", "Классная отвертка", true, null,
+                List.of(), List.of());
+        ItemExportDto ladder = new ItemExportDto(2, "Стремянка", "Высокая стремянка", true, 1,
+                List.of(), List.of());
+        doAnswer(invocation -> {
+            Consumer<ItemExportDto> consumer = invocation.getArgument(1);
+            consumer.accept(screwdriver);
+            consumer.accept(ladder);
+            return null;
+        }).when(itemService).exportItems(eq(userId), any());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        itemController.exportItems(userId).getBody().writeTo(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals('{', lines[1].charAt(0));
+        assertEquals(screwdriver, objectMapper.readValue(lines[0], ItemExportDto.class));
+        assertEquals(ladder, objectMapper.readValue(lines[1], ItemExportDto.class));
+    }
+
+    @Test
+    public void exportItemsWhenUserNotFoundThrowExceptionBeforeStreaming() {
+        when(userService.getUserById(userId)).thenThrow(NotFoundUserException.class);
+
+        assertThrows(NotFoundUserException.class, () -> itemController.exportItems(userId));
+        verifyNoInteractions(itemService);
+    }
 }
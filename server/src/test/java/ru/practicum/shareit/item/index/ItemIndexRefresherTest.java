@@ -0,0 +1,72 @@
+package ru.practicum.shareit.item.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemIndexRefresherTest {
+    @Mock
+    private ItemRepository itemRepository;
+
+    private ItemSearchIndex itemSearchIndex;
+    private ItemNameSuggester itemNameSuggester;
+    private ItemIndexRefresher refresher;
+
+    @BeforeEach
+    public void setUp() {
+        itemSearchIndex = new ItemSearchIndex();
+        itemNameSuggester = new ItemNameSuggester();
+        refresher = new ItemIndexRefresher(itemRepository, itemSearchIndex, itemNameSuggester);
+    }
+
+    @Test
+    public void refreshWhenInvokedLoadItemsInBatchesIntoBothIndexes() {
+        List<Item> firstBatch = IntStream.rangeClosed(1, 1000)
+                .mapToObj(id -> item(id, "Вещь " + id, true))
+                .collect(Collectors.toList());
+        when(itemRepository.findAllByIdGreaterThanOrderByIdAsc(0, PageRequest.of(0, 1000))).thenReturn(firstBatch);
+        when(itemRepository.findAllByIdGreaterThanOrderByIdAsc(1000, PageRequest.of(0, 1000)))
+                .thenReturn(List.of(item(1001, "Стремянка", true)));
+
+        refresher.refresh();
+
+        assertEquals(List.of(1001), itemSearchIndex.search("стрем", 0, 10));
+        assertEquals(List.of("Стремянка"), itemNameSuggester.suggest("стр", 10));
+        assertEquals(List.of(1), itemSearchIndex.search("вещь 1", 0, 1));
+    }
+
+    @Test
+    public void refreshWhenItemDeletedOnAnotherNodeDropItFromIndexes() {
+        itemSearchIndex.put(item(1, "Дрель", true));
+        itemNameSuggester.put(item(1, "Дрель", true));
+        when(itemRepository.findAllByIdGreaterThanOrderByIdAsc(0, PageRequest.of(0, 1000)))
+                .thenReturn(List.of(item(2, "Перфоратор", true)));
+
+        refresher.refresh();
+
+        assertEquals(List.of(), itemSearchIndex.search("дрель", 0, 10));
+        assertEquals(List.of(), itemNameSuggester.suggest("дре", 10));
+        assertEquals(List.of(2), itemSearchIndex.search("перф", 0, 10));
+    }
+
+    private Item item(Integer id, String name, Boolean available) {
+        return Item.builder()
+                .id(id)
+                .name(name)
+                .available(available)
+                .build();
+    }
+}
@@ -0,0 +1,95 @@
+package ru.practicum.shareit.item.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ItemNameSuggesterTest {
+    private ItemNameSuggester suggester;
+
+    @BeforeEach
+    public void setUp() {
+        suggester = new ItemNameSuggester();
+        suggester.put(item(1, "Дрель", true));
+        suggester.put(item(2, "Ударная дрель", true));
+        suggester.put(item(3, "Дрель", true));
+        suggester.put(item(4, "Древний топор", false));
+    }
+
+    @Test
+    public void suggestWhenPrefixStartsAnyWordReturnDistinctNamesInOrder() {
+        assertEquals(List.of("Дрель", "Ударная дрель"), suggester.suggest("ДРЕ", 10));
+        assertEquals(List.of("Ударная дрель"), suggester.suggest("удар", 10));
+        assertEquals(List.of("Ударная дрель"), suggester.suggest("ударная др", 10));
+    }
+
+    @Test
+    public void suggestWhenLimitIsReachedStopEarly() {
+        assertEquals(List.of("Дрель"), suggester.suggest("дре", 1));
+    }
+
+    @Test
+    public void suggestWhenPrefixIsBlankReturnEmptyList() {
+        assertEquals(List.of(), suggester.suggest(" ", 10));
+    }
+
+    @Test
+    public void putWhenItemRenamedOrMadeUnavailableUpdateSuggestions() {
+        suggester.put(item(2, "Перфоратор", true));
+        suggester.put(item(1, "Дрель", false));
+
+        assertEquals(List.of("Дрель"), suggester.suggest("дре", 10));
+        assertEquals(List.of("Перфоратор"), suggester.suggest("перф", 10));
+        assertEquals(List.of(), suggester.suggest("удар", 10));
+    }
+
+    @Test
+    public void removeWhenLastItemWithNameDeletedDropName() {
+        suggester.remove(1);
+
+        assertEquals(List.of("Дрель", "Ударная дрель"), suggester.suggest("дре", 10));
+
+        suggester.remove(3);
+
+        assertEquals(List.of("Ударная дрель"), suggester.suggest("дре", 10));
+    }
+
+    @Test
+    public void rebuildWhenPublishedReplaceSuggestionsWithAvailableItems() {
+        ItemNameSuggester.Rebuild rebuild = suggester.startRebuild();
+        rebuild.add(item(5, "Стремянка", true));
+        rebuild.add(item(6, "Стеллаж", false));
+
+        assertEquals(List.of(), suggester.suggest("ст", 10));
+
+        rebuild.publish();
+
+        assertEquals(List.of("Стремянка"), suggester.suggest("ст", 10));
+        assertEquals(List.of(), suggester.suggest("дре", 10));
+    }
+
+    @Test
+    public void rebuildWhenItemsWrittenWhileLoadingKeepThoseWrites() {
+        ItemNameSuggester.Rebuild rebuild = suggester.startRebuild();
+        rebuild.add(item(1, "Дрель", true));
+        rebuild.add(item(2, "Ударная дрель", true));
+        suggester.put(item(7, "Стремянка", true));
+        suggester.remove(2);
+        rebuild.publish();
+
+        assertEquals(List.of("Дрель"), suggester.suggest("дре", 10));
+        assertEquals(List.of("Стремянка"), suggester.suggest("стр", 10));
+    }
+
+    private Item item(Integer id, String name, Boolean available) {
+        return Item.builder()
+                .id(id)
+                .name(name)
+                .available(available)
+                .build();
+    }
+}
@@ -0,0 +1,162 @@
+package ru.practicum.shareit.item.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ItemSearchIndexTest {
+    private ItemSearchIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new ItemSearchIndex();
+        index.put(item(1, "Отвертка", "Простая отвертка", true));
+        index.put(item(2, "Топор", "Простой топор", true));
+        index.put(item(3, "Пила", "Бензопила", false));
+        index.put(item(4, "Cordless drill", "Makita, 18V; ещё новая", true));
+    }
+
+    @Test
+    public void searchWhenWordMatchesIgnoringCaseReturnItem() {
+        assertEquals(List.of(1), index.search("ОТВЕРТКА", 0, 10));
+        assertEquals(List.of(4), index.search("DRILL", 0, 10));
+    }
+
+    @Test
+    public void searchWhenQueryIsPrefixOfWordReturnAllMatchingItems() {
+        assertEquals(List.of(1, 2), index.search("прост", 0, 10));
+        assertEquals(List.of(4), index.search("cord", 0, 10));
+    }
+
+    @Test
+    public void searchWhenSeveralWordsRequireEachOfThem() {
+        assertEquals(List.of(2), index.search("простой топ", 0, 10));
+        assertEquals(List.of(), index.search("простой отвертка", 0, 10));
+    }
+
+    @Test
+    public void searchWhenTextContainsPunctuationSplitOnIt() {
+        assertEquals(List.of(4), index.search("makita 18v", 0, 10));
+        assertEquals(List.of(4), index.search("еще", 0, 10));
+    }
+
+    @Test
+    public void searchWhenItemIsNotAvailableSkipIt() {
+        assertEquals(List.of(), index.search("бензопила", 0, 10));
+    }
+
+    @Test
+    public void searchWhenOffsetAndLimitSetReturnRequestedPage() {
+        assertEquals(List.of(2), index.search("прост", 1, 1));
+    }
+
+    @Test
+    public void putWhenItemChangedReplaceItsWords() {
+        index.put(item(1, "Шуруповерт", "Аккумуляторный", true));
+
+        assertEquals(List.of(), index.search("отвертка", 0, 10));
+        assertEquals(List.of(1), index.search("шуруп", 0, 10));
+        assertEquals(List.of(2), index.search("прост", 0, 10));
+    }
+
+    @Test
+    public void removeWhenItemDeletedDoNotFindIt() {
+        index.remove(2);
+
+        assertEquals(List.of(1), index.search("прост", 0, 10));
+        assertEquals(List.of(), index.search("топор", 0, 10));
+    }
+
+    @Test
+    public void rebuildWhenPublishedReplaceContentOnlyThen() {
+        ItemSearchIndex.Rebuild rebuild = index.startRebuild();
+        rebuild.add(item(5, "Стремянка", "Высокая", true));
+
+        assertEquals(List.of(1, 2), index.search("прост", 0, 10));
+        assertEquals(List.of(), index.search("стрем", 0, 10));
+
+        rebuild.publish();
+
+        assertEquals(List.of(5), index.search("стрем", 0, 10));
+        assertEquals(List.of(), index.search("прост", 0, 10));
+    }
+
+    @Test
+    public void rebuildWhenItemsWrittenWhileLoadingKeepThoseWrites() {
+        ItemSearchIndex.Rebuild rebuild = index.startRebuild();
+        rebuild.add(item(1, "Отвертка", "Простая отвертка", true));
+        rebuild.add(item(2, "Топор", "Простой топор", true));
+        index.put(item(6, "Стремянка", "Высокая", true));
+        index.remove(2);
+        rebuild.publish();
+
+        assertEquals(List.of(6), index.search("стрем", 0, 10));
+        assertEquals(List.of(1), index.search("прост", 0, 10));
+    }
+
+    @Test
+    public void searchWhenOtherItemIsRewrittenConcurrentlyKeepFindingExistingItem() {
+        AtomicBoolean running = new AtomicBoolean(true);
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            for (int i = 0; running.get(); i++) {
+                index.put(item(2, "Топор " + i, "Простой топор", true));
+            }
+        });
+        try {
+            for (int i = 0; i < 10_000; i++) {
+                assertEquals(List.of(2), index.search("топор", 0, 10));
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+    }
+
+    @Test
+    public void searchByRelevanceWhenWordIsInNameRankItAboveDescriptionMatch() {
+        index.put(item(5, "Дрель", "Ударная", true));
+        index.put(item(6, "Перфоратор", "Лучше чем дрель", true));
+
+        assertEquals(List.of(5, 6), index.searchByRelevance("дрель", 0, 10));
+    }
+
+    @Test
+    public void searchByRelevanceWhenWordIsRareRankItsRepetitionsAboveCommonWord() {
+        index.put(item(5, "Набор", "Простой простой ключ", true));
+        index.put(item(6, "Набор", "Простой ключ ключ", true));
+
+        assertEquals(List.of(6, 5), index.searchByRelevance("прост ключ", 0, 10));
+    }
+
+    @Test
+    public void searchByRelevanceWhenOffsetAndLimitSetReturnRequestedSliceOfRanking() {
+        index.put(item(5, "Дрель", "Дрель дрель", true));
+        index.put(item(6, "Дрель", "Ударная", true));
+        index.put(item(7, "Перфоратор", "Почти дрель", true));
+        List<Integer> ranking = index.searchByRelevance("дрель", 0, 10);
+
+        assertEquals(List.of(5, 6, 7), ranking);
+        assertEquals(ranking.subList(1, 2), index.searchByRelevance("дрель", 1, 1));
+        assertEquals(List.of(), index.searchByRelevance("дрель", 3, 10));
+    }
+
+    @Test
+    public void searchByRelevanceWhenItemIsNotAvailableSkipIt() {
+        assertEquals(List.of(), index.searchByRelevance("пила", 0, 10));
+    }
+
+    private Item item(Integer id, String name, String description, Boolean available) {
+        return Item.builder()
+                .id(id)
+                .name(name)
+                .description(description)
+                .available(available)
+                .build();
+    }
+}
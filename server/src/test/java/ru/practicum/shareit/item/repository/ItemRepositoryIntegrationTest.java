@@ -7,6 +7,8 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.dto.ResponseDto;
 
 import java.util.List;
 
@@ -57,60 +59,54 @@ public class ItemRepositoryIntegrationTest {
     }
 
     @Test
-    public void findAllByAvailableAndDescriptionContainingIgnoreCaseOrNameContainingIgnoreCaseWhenMethodInvokedReturnOneItem() {
-        assertEquals(1, itemRepository
-                .findAllByAvailableAndDescriptionContainingIgnoreCaseOrNameContainingIgnoreCase(true,
-                        "отвертка", "отвертка", defaultPageRequest).size());
+    public void findAllByIdInWhenInvokedMethodReturnRequestedItems() {
+        assertEquals(2, itemRepository.findAllByIdIn(List.of(1, 3, 100)).size());
     }
 
     @Test
-    public void findAllByAvailableAndDescriptionContainingIgnoreCaseOrNameContainingIgnoreCaseWhenOnlyDescriptionMatchReturnTwoItems() {
-        assertEquals(2, itemRepository
-                .findAllByAvailableAndDescriptionContainingIgnoreCaseOrNameContainingIgnoreCase(true,
-                        "прост", "прост", defaultPageRequest).size());
-    }
+    public void findAllByIdGreaterThanOrderByIdAscWhenPageIsSmallerReturnNextBatch() {
+        List<Item> items = itemRepository.findAllByIdGreaterThanOrderByIdAsc(1, PageRequest.of(0, 1));
 
-    @Test
-    public void findAllByAvailableAndDescriptionContainingIgnoreCaseOrNameContainingIgnoreCaseWhenItemsNotFoundReturnEmptyList() {
-        assertEquals(0, itemRepository
-                .findAllByAvailableAndDescriptionContainingIgnoreCaseOrNameContainingIgnoreCase(true,
-                        "Бу", "Бу", defaultPageRequest).size());
-    }
-
-    @Test
-    public void findAllByAvailableAndDescriptionContainingIgnoreCaseOrNameContainingIgnoreCaseWhenAvailableFalseReturnOneItem() {
-        assertEquals(1, itemRepository
-                .findAllByAvailableAndDescriptionContainingIgnoreCaseOrNameContainingIgnoreCase(false,
-                        "Бенз", "Бенз", defaultPageRequest).size());
+        assertEquals(1, items.size());
+        assertEquals(2, items.get(0).getId());
     }
 
     @Test
-    public void findAllByRequestIdWhenInvokedMethodReturnTwoItems() {
-        assertEquals(2, itemRepository.findAllByRequestId(1).size());
+    public void findResponsesByRequestIdWhenInvokedMethodReturnTwoItems() {
+        assertEquals(2, itemRepository.findResponsesByRequestId(1).size());
     }
 
     @Test
-    public void findAllByRequestIdWhenItemsNotFoundReturnEmptyList() {
+    public void findResponsesByRequestIdWhenItemsNotFoundReturnEmptyList() {
         int unknownRequestId = 100;
 
-        assertEquals(0, itemRepository.findAllByRequestId(unknownRequestId).size());
+        assertEquals(0, itemRepository.findResponsesByRequestId(unknownRequestId).size());
     }
 
     @Test
-    public void findAllByRequestsWhenItemsNotFoundByListReturnEmptyList() {
+    public void findResponsesByRequestsWhenItemsNotFoundByListReturnEmptyList() {
         int unknownRequestId = 100;
 
         List<Integer> requests = List.of(unknownRequestId);
 
-        assertEquals(0, itemRepository.findAllByRequests(requests).size());
+        assertEquals(0, itemRepository.findResponsesByRequests(requests).size());
     }
 
     @Test
-    public void findAllByRequestsWhenTwoItemsFoundReturnTwoItems() {
+    public void findResponsesByRequestsWhenTwoItemsFoundReturnTwoItems() {
         int requestId = 1;
 
         List<Integer> requests = List.of(requestId);
 
-        assertEquals(2, itemRepository.findAllByRequests(requests).size());
+        assertEquals(2, itemRepository.findResponsesByRequests(requests).size());
+    }
+
+    @Test
+    public void findResponsesByRequestsWhenInvokedMethodReturnItemFieldsWithRequestId() {
+        List<ResponseDto> responses = itemRepository.findResponsesByRequests(List.of(1, 2));
+
+        assertEquals(List.of(new ResponseDto(1, "Отвертка", "Простая отвертка", 1, true),
+                new ResponseDto(2, "Топор", "Простой топор", 1, true),
+                new ResponseDto(3, "Пила", "Бензопила", 2, false)), responses);
     }
 }
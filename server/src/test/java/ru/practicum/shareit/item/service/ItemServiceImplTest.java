@@ -7,23 +7,41 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.springframework.data.domain.PageRequest;
 import ru.practicum.shareit.booking.enumStatus.Status;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.index.ItemBookingPointers;
+import ru.practicum.shareit.booking.index.ItemLocks;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.cache.ItemViewCache;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemBookDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemExportDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
+import ru.practicum.shareit.item.exception.ItemConflictException;
 import ru.practicum.shareit.item.exception.NotFoundItemException;
 import ru.practicum.shareit.item.exception.NotValidationException;
+import ru.practicum.shareit.item.index.ItemNameSuggester;
+import ru.practicum.shareit.item.index.ItemSearchIndex;
 import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemRating;
 import ru.practicum.shareit.item.model.RequestItem;
+import ru.practicum.shareit.item.model.SearchSort;
 import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRatingRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.dto.UserDto;
@@ -31,10 +49,16 @@ import ru.practicum.shareit.user.exception.NotFoundUserException;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import javax.persistence.EntityManager;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -56,6 +80,33 @@ public class ItemServiceImplTest {
     @Mock
     CommentRepository commentRepository;
 
+    @Mock
+    ItemRatingRepository itemRatingRepository;
+
+    @Mock
+    ItemBookingPointers itemBookingPointers;
+
+    @Mock
+    BookingIntervalIndex bookingIntervalIndex;
+
+    @Spy
+    ItemLocks itemLocks = new ItemLocks();
+
+    @Mock
+    ItemSearchIndex itemSearchIndex;
+
+    @Mock
+    ItemNameSuggester itemNameSuggester;
+
+    @Mock
+    EntityManager entityManager;
+
+    @Spy
+    TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @Spy
+    ItemViewCache itemViewCache = new ItemViewCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(5));
+
     @InjectMocks
     ItemServiceImpl itemService;
 
@@ -72,6 +123,7 @@ public class ItemServiceImplTest {
         userDto = new UserDto(userId, "Jon Bon", "mail@mail.ru");
         itemBookDto = new ItemBookDto(itemId, "Отвертка", userDto, "Классная отвертка", true);
         itemBookDto.setComments(new ArrayList<>());
+        itemBookDto.setRating(ItemMapper.toItemRatingDto(ItemRating.empty(itemId)));
         itemDto = new ItemDto(itemId, "Стремянка", "Высокая стремянка", true, userDto.getId(), 1);
     }
 
@@ -82,8 +134,36 @@ public class ItemServiceImplTest {
         ItemBookDto foundItem = itemService.getItemById(itemId, userId);
 
         assertEquals(itemBookDto, foundItem);
-        verify(bookingRepository).findAllByItemId(itemId);
-        verify(commentRepository).findAllByItemId(itemId);
+        verify(commentRepository).findAllByItemIdAndIdLessThanOrderByIdDesc(eq(itemId), eq(Integer.MAX_VALUE), any());
+    }
+
+    @Test
+    public void getItemByIdWhenReadTwiceLoadItemOnce() {
+        when(itemRepository.findById(itemId)).thenReturn(Optional.of(ItemMapper.toItem(itemBookDto, UserMapper.toUser(userDto))));
+
+        ItemBookDto first = itemService.getItemById(2, itemId);
+        ItemBookDto second = itemService.getItemById(2, itemId);
+
+        assertEquals(first, second);
+        verify(itemRepository, times(1)).findById(itemId);
+        verify(commentRepository, times(1)).findAllByItemIdAndIdLessThanOrderByIdDesc(eq(itemId), eq(Integer.MAX_VALUE), any());
+    }
+
+    @Test
+    public void getItemByIdWhenItemUpdatedBetweenReadsLoadItemAgain() {
+        ItemDto newItem = new ItemDto();
+        newItem.setName("name");
+
+        when(itemRepository.findById(itemId)).thenReturn(Optional.of(ItemMapper.toItem(itemBookDto, UserMapper.toUser(userDto))));
+        when(userRepository.findById(userId)).thenReturn(Optional.of(UserMapper.toUser(userDto)));
+
+        itemService.getItemById(2, itemId);
+        itemService.updateItem(userId, itemId, newItem);
+        ItemBookDto foundItem = itemService.getItemById(2, itemId);
+
+        assertEquals("name", foundItem.getName());
+        verify(itemViewCache).invalidate(itemId);
+        verify(commentRepository, times(2)).findAllByItemIdAndIdLessThanOrderByIdDesc(eq(itemId), eq(Integer.MAX_VALUE), any());
     }
 
     @Test
@@ -96,16 +176,16 @@ public class ItemServiceImplTest {
         Booking nextBooking = new Booking(2, LocalDateTime.now().plusDays(1),
                 LocalDateTime.now().plusDays(2), item, currentUser, Status.APPROVED);
 
-        when(itemRepository.findById(itemId)).thenReturn(Optional.of(ItemMapper.toItem(itemBookDto, UserMapper.toUser(userDto))));
-        when(bookingRepository.findAllByItemId(itemId)).thenReturn(List.of(lastBooking, nextBooking));
+        item.setLastBooking(lastBooking);
+        item.setNextBooking(nextBooking);
+        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
 
         ItemBookDto foundItem = itemService.getItemById(itemId, userId);
         itemBookDto.setLastBooking(BookingMapper.toBookingDto(lastBooking));
         itemBookDto.setNextBooking(BookingMapper.toBookingDto(nextBooking));
 
         assertEquals(itemBookDto, foundItem);
-        verify(bookingRepository).findAllByItemId(itemId);
-        verify(commentRepository).findAllByItemId(itemId);
+        verify(commentRepository).findAllByItemIdAndIdLessThanOrderByIdDesc(eq(itemId), eq(Integer.MAX_VALUE), any());
     }
 
     @Test
@@ -125,16 +205,17 @@ public class ItemServiceImplTest {
         Booking nextBooking = new Booking(2, LocalDateTime.now().plusDays(1),
                 LocalDateTime.now().plusDays(2), item, currentUser, Status.APPROVED);
         Comment comment = new Comment(1, "text", item, currentUser, 1, LocalDateTime.now().minusDays(1));
-        List<Booking> bookings = List.of(lastBooking, nextBooking);
         List<Comment> comments = List.of(comment);
 
         itemBookDto.setLastBooking(BookingMapper.toBookingDto(lastBooking));
         itemBookDto.setNextBooking(BookingMapper.toBookingDto(nextBooking));
         itemBookDto.setComments(CommentMapper.toCommentDto(comments));
 
-        when(bookingRepository.findAllByItemId(itemId)).thenReturn(bookings);
-        when(commentRepository.findAllByItemId(itemId)).thenReturn(comments);
-        when(itemRepository.findById(itemId)).thenReturn(Optional.of(ItemMapper.toItem(itemBookDto, currentUser)));
+        when(commentRepository.findAllByItemIdAndIdLessThanOrderByIdDesc(eq(itemId), eq(Integer.MAX_VALUE), any()))
+                .thenReturn(comments);
+        item.setLastBooking(lastBooking);
+        item.setNextBooking(nextBooking);
+        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
 
         assertEquals(itemBookDto, itemService.getItemById(itemId, userId));
     }
@@ -148,15 +229,15 @@ public class ItemServiceImplTest {
                 LocalDateTime.now().minusDays(1), item, currentUser, Status.APPROVED);
         Comment comment = new Comment(1, "text", item, currentUser, 1, LocalDateTime.now().minusDays(1));
 
-        List<Booking> bookings = List.of(lastBooking);
         List<Comment> comments = List.of(comment);
 
         itemBookDto.setLastBooking(BookingMapper.toBookingDto(lastBooking));
         itemBookDto.setComments(CommentMapper.toCommentDto(comments));
 
-        when(bookingRepository.findAllByItemId(itemId)).thenReturn(bookings);
-        when(commentRepository.findAllByItemId(itemId)).thenReturn(comments);
-        when(itemRepository.findById(itemId)).thenReturn(Optional.of(ItemMapper.toItem(itemBookDto, currentUser)));
+        when(commentRepository.findAllByItemIdAndIdLessThanOrderByIdDesc(eq(itemId), eq(Integer.MAX_VALUE), any()))
+                .thenReturn(comments);
+        item.setLastBooking(lastBooking);
+        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
 
         assertEquals(itemBookDto, itemService.getItemById(itemId, userId));
     }
@@ -170,13 +251,34 @@ public class ItemServiceImplTest {
                 LocalDateTime.now().minusDays(1), item, currentUser, Status.APPROVED);
         Booking nextBooking = new Booking(2, LocalDateTime.now().plusDays(1),
                 LocalDateTime.now().plusDays(2), item, currentUser, Status.APPROVED);
-        List<Booking> bookings = List.of(lastBooking, nextBooking);
 
         itemBookDto.setLastBooking(BookingMapper.toBookingDto(lastBooking));
         itemBookDto.setNextBooking(BookingMapper.toBookingDto(nextBooking));
 
-        when(bookingRepository.findAllByItemId(itemId)).thenReturn(bookings);
-        when(itemRepository.findById(itemId)).thenReturn(Optional.of(ItemMapper.toItem(itemBookDto, currentUser)));
+        item.setLastBooking(lastBooking);
+        item.setNextBooking(nextBooking);
+        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
+
+        assertEquals(itemBookDto, itemService.getItemById(itemId, userId));
+    }
+
+    @Test
+    public void getItemByIdWhenNextBookingAlreadyStartedRecalculateBookings() {
+        Item item = ItemMapper.toItem(itemBookDto, UserMapper.toUser(userDto));
+        User currentUser = UserMapper.toUser(userDto);
+
+        Booking startedBooking = new Booking(2, LocalDateTime.now().minusHours(1),
+                LocalDateTime.now().plusDays(1), item, currentUser, Status.APPROVED);
+        Booking nextBooking = new Booking(3, LocalDateTime.now().plusDays(2),
+                LocalDateTime.now().plusDays(3), item, currentUser, Status.APPROVED);
+        item.setNextBooking(startedBooking);
+
+        itemBookDto.setLastBooking(BookingMapper.toBookingDto(startedBooking));
+        itemBookDto.setNextBooking(BookingMapper.toBookingDto(nextBooking));
+
+        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
+        when(itemBookingPointers.findLast(eq(itemId), any())).thenReturn(startedBooking);
+        when(itemBookingPointers.findNext(eq(itemId), any())).thenReturn(nextBooking);
 
         assertEquals(itemBookDto, itemService.getItemById(itemId, userId));
     }
@@ -191,7 +293,8 @@ public class ItemServiceImplTest {
 
         itemBookDto.setComments(CommentMapper.toCommentDto(comments));
 
-        when(commentRepository.findAllByItemId(itemId)).thenReturn(comments);
+        when(commentRepository.findAllByItemIdAndIdLessThanOrderByIdDesc(eq(itemId), eq(Integer.MAX_VALUE), any()))
+                .thenReturn(comments);
         when(itemRepository.findById(itemId)).thenReturn(Optional.of(ItemMapper.toItem(itemBookDto, currentUser)));
 
         assertEquals(itemBookDto, itemService.getItemById(itemId, userId));
@@ -209,18 +312,19 @@ public class ItemServiceImplTest {
                 LocalDateTime.now().plusDays(2), item, currentUser, Status.APPROVED);
         Comment comment = new Comment(1, "text", item, currentUser, 1, LocalDateTime.now().minusDays(1));
 
-        List<Booking> bookings = List.of(lastBooking, nextBooking);
         List<Comment> comments = List.of(comment);
 
         itemBookDto.setLastBooking(BookingMapper.toBookingDto(lastBooking));
         itemBookDto.setNextBooking(BookingMapper.toBookingDto(nextBooking));
         itemBookDto.setComments(CommentMapper.toCommentDto(comments));
 
-        List<Item> items = List.of(ItemMapper.toItem(itemBookDto, UserMapper.toUser(userDto)));
+        item.setLastBooking(lastBooking);
+        item.setNextBooking(nextBooking);
+        List<Item> items = List.of(item);
         List<ItemBookDto> itemsDto = List.of(itemBookDto);
 
-        when(bookingRepository.findAllByItems(items)).thenReturn(bookings);
-        when(commentRepository.findAllByItems(items)).thenReturn(comments);
+        when(commentRepository.findLatestIds(List.of(itemId), 10)).thenReturn(List.of(1));
+        when(commentRepository.findAllByIdInOrderByIdDesc(List.of(1))).thenReturn(comments);
         when(itemRepository.findAllByOwnerId(userId, pageRequest)).thenReturn(items);
 
         List<ItemBookDto> foundItems = itemService.getItemsForUser(requestItem);
@@ -364,6 +468,73 @@ public class ItemServiceImplTest {
         verify(itemRepository, never()).save(ItemMapper.toItem(newItem, UserMapper.toUser(userDto)));
     }
 
+    @Test
+    public void updateItemWhenVersionConflictOnceRetryAndIndexUpdatedItem() {
+        ItemDto newItem = new ItemDto();
+        newItem.setName("name");
+
+        when(itemRepository.findById(itemId)).thenReturn(Optional.of(ItemMapper.toItem(itemBookDto, UserMapper.toUser(userDto))));
+        when(userRepository.findById(userId)).thenReturn(Optional.of(UserMapper.toUser(userDto)));
+        when(itemRepository.save(any(Item.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Item.class, itemId))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        ItemDto updatedItem = itemService.updateItem(userId, itemId, newItem);
+
+        assertEquals("name", updatedItem.getName());
+        verify(itemRepository, times(2)).save(any(Item.class));
+        verify(itemSearchIndex, times(1)).put(any(Item.class));
+        verify(itemNameSuggester, times(1)).put(any(Item.class));
+    }
+
+    @Test
+    public void updateItemWhenVersionConflictPersistsThrowConflictAndKeepIndexes() {
+        ItemDto newItem = new ItemDto();
+        newItem.setName("name");
+
+        when(itemRepository.findById(itemId)).thenReturn(Optional.of(ItemMapper.toItem(itemBookDto, UserMapper.toUser(userDto))));
+        when(userRepository.findById(userId)).thenReturn(Optional.of(UserMapper.toUser(userDto)));
+        when(itemRepository.save(any(Item.class))).thenThrow(new ObjectOptimisticLockingFailureException(Item.class, itemId));
+
+        assertThrows(ItemConflictException.class, () -> itemService.updateItem(userId, itemId, newItem));
+        verify(itemRepository, times(3)).save(any(Item.class));
+        verify(itemViewCache, never()).invalidate(itemId);
+        verifyNoInteractions(itemSearchIndex, itemNameSuggester);
+    }
+
+    @Test
+    public void updateItemWhenVersionBumpedAdvanceBookingTimeline() {
+        ItemDto newItem = new ItemDto();
+        newItem.setName("name");
+        Item item = ItemMapper.toItem(itemBookDto, UserMapper.toUser(userDto));
+        item.setVersion(4);
+
+        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
+        when(userRepository.findById(userId)).thenReturn(Optional.of(UserMapper.toUser(userDto)));
+        doAnswer(invocation -> {
+            item.setVersion(5);
+            return null;
+        }).when(itemRepository).flush();
+
+        itemService.updateItem(userId, itemId, newItem);
+
+        verify(bookingIntervalIndex).advance(itemId, 4);
+        verify(bookingIntervalIndex, never()).evict(itemId);
+    }
+
+    @Test
+    public void updateItemWhenNothingChangedKeepBookingTimeline() {
+        Item item = ItemMapper.toItem(itemBookDto, UserMapper.toUser(userDto));
+        item.setVersion(4);
+
+        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
+        when(userRepository.findById(userId)).thenReturn(Optional.of(UserMapper.toUser(userDto)));
+
+        itemService.updateItem(userId, itemId, new ItemDto());
+
+        verifyNoInteractions(bookingIntervalIndex);
+    }
+
     @Test
     public void addItemWhenMethodInvokedReturnItem() {
         Item currentItem = ItemMapper.toItem(itemDto, UserMapper.toUser(userDto));
@@ -373,6 +544,106 @@ public class ItemServiceImplTest {
 
         assertEquals(itemDto, itemService.createItem(userId, itemDto));
         verify(itemRepository).save(currentItem);
+        verify(itemSearchIndex).put(currentItem);
+        verify(itemNameSuggester).put(currentItem);
+    }
+
+    @Test
+    public void importItemsWhenAllRowsValidSaveThemInOneBatch() {
+        ItemDto drill = new ItemDto(null, "Дрель", "Ударная дрель", true, null, null);
+        when(userRepository.findById(userId)).thenReturn(Optional.of(UserMapper.toUser(userDto)));
+        when(itemRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<Item> items = invocation.getArgument(0);
+            for (int i = 0; i < items.size(); i++) {
+                items.get(i).setId(10 + i);
+            }
+            return items;
+        });
+
+        List<ItemImportResultDto> results = itemService.importItems(userId, List.of(itemDto, drill));
+
+        assertEquals(List.of(ItemImportResultDto.created(0, 10), ItemImportResultDto.created(1, 11)), results);
+        verify(itemRepository, times(1)).saveAll(any());
+        verify(itemRepository, never()).save(any());
+        verify(itemSearchIndex, times(2)).put(any());
+    }
+
+    @Test
+    public void importItemsWhenBatchRejectedSaveRowsOneByOneAndReportFailedRow() {
+        ItemDto drill = new ItemDto(null, "Дрель", "Ударная дрель", true, null, null);
+        when(userRepository.findById(userId)).thenReturn(Optional.of(UserMapper.toUser(userDto)));
+        when(itemRepository.saveAll(any())).thenThrow(new DataIntegrityViolationException("request_id"));
+        when(itemRepository.save(any())).thenAnswer(invocation -> {
+            Item item = invocation.getArgument(0);
+            item.setId(10);
+            return item;
+        }).thenThrow(new DataIntegrityViolationException("request_id"));
+
+        List<ItemImportResultDto> results = itemService.importItems(userId, List.of(itemDto, drill));
+
+        assertEquals(List.of(ItemImportResultDto.created(0, 10), ItemImportResultDto.failed(1, "request_id")),
+                results);
+        verify(itemSearchIndex, times(1)).put(any());
+    }
+
+    @Test
+    public void importItemsWhenTooManyRowsThrowException() {
+        List<ItemDto> itemDtos = Collections.nCopies(1001, itemDto);
+
+        assertThrows(NotValidationException.class, () -> itemService.importItems(userId, itemDtos));
+        verifyNoInteractions(itemRepository);
+    }
+
+    @Test
+    public void exportItemsWhenOwnerHasItemsPassItemsWithBookingsAndComments() {
+        User owner = UserMapper.toUser(userDto);
+        Item screwdriver = ItemMapper.toItem(itemBookDto, owner);
+        Item ladder = ItemMapper.toItem(itemDto, owner);
+        ladder.setId(2);
+        Booking booking = new Booking(1, LocalDateTime.now().minusDays(2),
+                LocalDateTime.now().minusDays(1), screwdriver, owner, Status.APPROVED);
+        Comment comment = new Comment(1, "text", ladder, owner, 5, LocalDateTime.now().minusDays(1));
+        when(userRepository.findById(userId)).thenReturn(Optional.of(owner));
+        when(itemRepository.streamAllByOwnerId(userId)).thenReturn(Stream.of(screwdriver, ladder));
+        when(bookingRepository.findAllByItems(List.of(screwdriver, ladder))).thenReturn(List.of(booking));
+        when(commentRepository.findAllByItems(List.of(screwdriver, ladder))).thenReturn(List.of(comment));
+        List<ItemExportDto> exported = new ArrayList<>();
+
+        itemService.exportItems(userId, exported::add);
+
+        assertEquals(2, exported.size());
+        assertEquals(List.of(BookingMapper.toBookingDto(booking)), exported.get(0).getBookings());
+        assertEquals(Collections.emptyList(), exported.get(0).getComments());
+        assertEquals(Collections.emptyList(), exported.get(1).getBookings());
+        assertEquals(CommentMapper.toCommentDto(List.of(comment)), exported.get(1).getComments());
+        verify(entityManager).clear();
+    }
+
+    @Test
+    public void exportItemsWhenItemsExceedChunkLoadBookingsAndCommentsPerChunk() {
+        User owner = UserMapper.toUser(userDto);
+        List<Item> items = IntStream.rangeClosed(1, 501)
+                .mapToObj(id -> Item.builder().id(id).name("Вещь " + id).owner(owner).build())
+                .collect(Collectors.toList());
+        when(userRepository.findById(userId)).thenReturn(Optional.of(owner));
+        when(itemRepository.streamAllByOwnerId(userId)).thenReturn(items.stream());
+        List<ItemExportDto> exported = new ArrayList<>();
+
+        itemService.exportItems(userId, exported::add);
+
+        assertEquals(501, exported.size());
+        verify(bookingRepository, times(2)).findAllByItems(any());
+        verify(commentRepository, times(2)).findAllByItems(any());
+        verify(entityManager, times(2)).clear();
+    }
+
+    @Test
+    public void exportItemsWhenUserNotFoundThrowException() {
+        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+
+        assertThrows(NotFoundUserException.class, () -> itemService.exportItems(userId, item -> {
+        }));
+        verifyNoInteractions(itemRepository);
     }
 
     @Test
@@ -392,6 +663,36 @@ public class ItemServiceImplTest {
 
         assertEquals(itemDto, itemService.deleteItem(itemId, userId));
         verify(itemRepository).delete(any());
+        verify(itemSearchIndex).remove(itemId);
+        verify(itemNameSuggester).remove(itemId);
+        verify(bookingIntervalIndex).evict(itemId);
+    }
+
+    @Test
+    public void deleteItemWhenVersionConflictOnceRetryAndDeleteItem() {
+        when(userRepository.findById(userId)).thenReturn(Optional.of(UserMapper.toUser(userDto)));
+        when(itemRepository.findById(itemId)).thenReturn(Optional.of(ItemMapper.toItem(itemDto, UserMapper.toUser(userDto))));
+        doThrow(new ObjectOptimisticLockingFailureException(Item.class, itemId))
+                .doNothing()
+                .when(itemRepository).delete(any(Item.class));
+
+        assertEquals(itemDto, itemService.deleteItem(itemId, userId));
+        verify(itemRepository, times(2)).delete(any(Item.class));
+        verify(itemLocks, times(1)).get(itemId);
+        verify(bookingIntervalIndex, times(2)).evict(itemId);
+    }
+
+    @Test
+    public void deleteItemWhenVersionConflictPersistsThrowConflictAndKeepIndexes() {
+        when(userRepository.findById(userId)).thenReturn(Optional.of(UserMapper.toUser(userDto)));
+        when(itemRepository.findById(itemId)).thenReturn(Optional.of(ItemMapper.toItem(itemDto, UserMapper.toUser(userDto))));
+        doThrow(new ObjectOptimisticLockingFailureException(Item.class, itemId))
+                .when(itemRepository).delete(any(Item.class));
+
+        assertThrows(ItemConflictException.class, () -> itemService.deleteItem(itemId, userId));
+        verify(itemRepository, times(3)).delete(any(Item.class));
+        verify(bookingIntervalIndex, times(3)).evict(itemId);
+        verifyNoInteractions(itemSearchIndex, itemNameSuggester);
     }
 
     @Test
@@ -431,11 +732,11 @@ public class ItemServiceImplTest {
     @Test
     public void searchItemWhenInvokedMethodReturnOneItem() {
         RequestItem requestItem = RequestItem.of(1, 0, 10, "text");
-        PageRequest pageRequest = PageRequest.of(requestItem.getFrom(), requestItem.getSize());
         List<ItemDto> items = List.of(itemDto);
 
-        when(itemRepository.findAllByAvailableAndDescriptionContainingIgnoreCaseOrNameContainingIgnoreCase(true,
-                requestItem.getText(), requestItem.getText(), pageRequest)).thenReturn(List.of(ItemMapper.toItem(itemDto, UserMapper.toUser(userDto))));
+        when(itemSearchIndex.search(requestItem.getText(), 0, requestItem.getSize())).thenReturn(List.of(itemId));
+        when(itemRepository.findAllByIdIn(List.of(itemId)))
+                .thenReturn(List.of(ItemMapper.toItem(itemDto, UserMapper.toUser(userDto))));
 
         assertEquals(items, itemService.search(requestItem));
     }
@@ -443,16 +744,44 @@ public class ItemServiceImplTest {
     @Test
     public void searchItemWhenNotFoundItemsReturnEmptyList() {
         RequestItem requestItem = RequestItem.of(1, 0, 10, "text");
-        PageRequest pageRequest = PageRequest.of(requestItem.getFrom(), requestItem.getSize());
         List<ItemDto> items = List.of();
 
-        when(itemRepository.findAllByAvailableAndDescriptionContainingIgnoreCaseOrNameContainingIgnoreCase(true,
-                requestItem.getText(), requestItem.getText(), pageRequest)).thenReturn(List.of());
+        when(itemSearchIndex.search(requestItem.getText(), 0, requestItem.getSize())).thenReturn(List.of());
 
         List<ItemDto> foundItems = itemService.search(requestItem);
 
         assertEquals(items, foundItems);
         assertEquals(0, foundItems.size());
+        verify(itemRepository, never()).findAllByIdIn(any());
+    }
+
+    @Test
+    public void searchItemWhenIndexReturnsSeveralIdsKeepIndexOrder() {
+        RequestItem requestItem = RequestItem.of(1, 10, 5, "text");
+        User owner = UserMapper.toUser(userDto);
+        Item first = Item.builder().id(3).name("Дрель").available(true).owner(owner).build();
+        Item second = Item.builder().id(7).name("Дрель ударная").available(true).owner(owner).build();
+
+        when(itemSearchIndex.search(requestItem.getText(), 10, 5)).thenReturn(List.of(3, 7));
+        when(itemRepository.findAllByIdIn(List.of(3, 7))).thenReturn(List.of(second, first));
+
+        List<ItemDto> foundItems = itemService.search(requestItem);
+
+        assertEquals(List.of(ItemMapper.toItemDto(first), ItemMapper.toItemDto(second)), foundItems);
+    }
+
+    @Test
+    public void searchItemWhenSortIsRelevanceUseRankedIndexSearch() {
+        RequestItem requestItem = RequestItem.of(1, 0, 10, "text", SearchSort.RELEVANCE);
+        User owner = UserMapper.toUser(userDto);
+        Item best = Item.builder().id(7).name("Дрель").available(true).owner(owner).build();
+        Item other = Item.builder().id(3).name("Дрель ударная").available(true).owner(owner).build();
+
+        when(itemSearchIndex.searchByRelevance(requestItem.getText(), 0, 10)).thenReturn(List.of(7, 3));
+        when(itemRepository.findAllByIdIn(List.of(7, 3))).thenReturn(List.of(other, best));
+
+        assertEquals(List.of(ItemMapper.toItemDto(best), ItemMapper.toItemDto(other)), itemService.search(requestItem));
+        verify(itemSearchIndex, never()).search(any(), anyLong(), anyInt());
     }
 
     @Test
@@ -466,6 +795,13 @@ public class ItemServiceImplTest {
         assertEquals(0, foundItems.size());
     }
 
+    @Test
+    public void suggestWhenInvokedMethodReturnNamesFromSuggester() {
+        when(itemNameSuggester.suggest("дре", 5)).thenReturn(List.of("Дрель"));
+
+        assertEquals(List.of("Дрель"), itemService.suggest("дре", 5));
+    }
+
     @Test
     public void addCommentWhenMethodInvokeReturnComment() {
         int userId = 2;
@@ -475,19 +811,86 @@ public class ItemServiceImplTest {
         CommentDto commentDto = new CommentDto(1, userDto, userDto.getName(), userId, 1, "text",
                 LocalDateTime.now(), itemDto, itemId);
         Comment comment = CommentMapper.toComment(commentDto, user, item);
-        Booking lastBooking = new Booking(1, LocalDateTime.now().minusDays(2),
-                LocalDateTime.now().minusDays(1), item, user, Status.APPROVED);
-        List<Booking> bookings = List.of(lastBooking);
 
         when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
         when(userRepository.findById(userId)).thenReturn(Optional.of(user));
-        when(bookingRepository.findAllByBookerIdAndEndIsBeforeOrderByEndDesc(anyInt(), any()))
-                .thenReturn(bookings);
+        when(bookingRepository.existsByBookerIdAndItemIdAndStatusAndEndBefore(eq(userId), eq(itemId),
+                eq(Status.APPROVED), any())).thenReturn(true);
         when(commentRepository.save(any())).thenReturn(comment);
         CommentDto commentDto1 = itemService.addComment(commentDto, userId, itemId);
         assertEquals(commentDto, commentDto1);
     }
 
+    @Test
+    public void addCommentWhenItemHasNoRatingYetCreateRating() {
+        int userId = 2;
+        Item item = ItemMapper.toItem(itemDto, UserMapper.toUser(userDto));
+        userDto.setId(userId);
+        User user = UserMapper.toUser(userDto);
+        CommentDto commentDto = new CommentDto(null, userDto, userDto.getName(), userId, 4, "text",
+                LocalDateTime.now(), itemDto, itemId);
+
+        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(bookingRepository.existsByBookerIdAndItemIdAndStatusAndEndBefore(eq(userId), eq(itemId),
+                eq(Status.APPROVED), any())).thenReturn(true);
+        when(commentRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(itemRatingRepository.addRating(itemId, 4)).thenReturn(0);
+
+        itemService.addComment(commentDto, userId, itemId);
+
+        verify(itemRatingRepository).save(ItemRating.first(itemId, 4));
+    }
+
+    @Test
+    public void addCommentWhenRatingIsZeroSaveCommentWithoutRating() {
+        int userId = 2;
+        Item item = ItemMapper.toItem(itemDto, UserMapper.toUser(userDto));
+        userDto.setId(userId);
+        User user = UserMapper.toUser(userDto);
+        CommentDto commentDto = new CommentDto(null, userDto, userDto.getName(), userId, 0, "text",
+                LocalDateTime.now(), itemDto, itemId);
+
+        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+        when(bookingRepository.existsByBookerIdAndItemIdAndStatusAndEndBefore(eq(userId), eq(itemId),
+                eq(Status.APPROVED), any())).thenReturn(true);
+        when(commentRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        itemService.addComment(commentDto, userId, itemId);
+
+        verify(commentRepository).save(any());
+        verifyNoInteractions(itemRatingRepository);
+    }
+
+    @Test
+    public void addCommentWhenRatingIsOutOfRangeThrowException() {
+        int userId = 2;
+        Item item = ItemMapper.toItem(itemDto, UserMapper.toUser(userDto));
+        userDto.setId(userId);
+        CommentDto commentDto = new CommentDto(null, userDto, userDto.getName(), userId, 6, "text",
+                LocalDateTime.now(), itemDto, itemId);
+
+        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
+        when(userRepository.findById(userId)).thenReturn(Optional.of(UserMapper.toUser(userDto)));
+
+        assertThrows(NotValidationException.class, () -> itemService.addComment(commentDto, userId, itemId));
+        verifyNoInteractions(commentRepository, itemRatingRepository);
+    }
+
+    @Test
+    public void getCommentsWhenCursorGivenReturnCommentsOlderThanCursor() {
+        User user = UserMapper.toUser(userDto);
+        Item item = ItemMapper.toItem(itemDto, user);
+        Comment comment = new Comment(3, "text", item, user, 5, LocalDateTime.now());
+
+        when(itemRepository.findById(itemId)).thenReturn(Optional.of(item));
+        when(commentRepository.findAllByItemIdAndIdLessThanOrderByIdDesc(itemId, 4, PageRequest.of(0, 2)))
+                .thenReturn(List.of(comment));
+
+        assertEquals(CommentMapper.toCommentDto(List.of(comment)), itemService.getComments(itemId, 4, 2));
+    }
+
     @Test
     public void addCommentWhenUserIsOwnerOfTheItemThrowException() {
         User user = UserMapper.toUser(userDto);
@@ -514,5 +917,29 @@ public class ItemServiceImplTest {
         when(userRepository.findById(userId)).thenReturn(Optional.of(user));
 
         assertThrows(NotValidationException.class, () -> itemService.addComment(commentDto, userId, itemId));
+        verify(commentRepository, never()).save(any());
+    }
+
+    @Test
+    public void getItemsForUserWhenCommentsBelongToDifferentItemsAttachEachCommentToItsItem() {
+        User currentUser = UserMapper.toUser(userDto);
+        Item screwdriver = ItemMapper.toItem(itemBookDto, currentUser);
+        Item axe = Item.builder().id(2).name("Топор").description("Простой топор").available(true)
+                .owner(currentUser).build();
+        RequestItem requestItem = RequestItem.of(userId, 0, 10, "text");
+        Comment first = new Comment(1, "Удобная", screwdriver, currentUser, 5, LocalDateTime.now().minusDays(2));
+        Comment second = new Comment(2, "Острый", axe, currentUser, 4, LocalDateTime.now().minusDays(1));
+        Comment third = new Comment(3, "Тяжелый", axe, currentUser, 3, LocalDateTime.now());
+        List<Item> items = List.of(screwdriver, axe);
+
+        when(itemRepository.findAllByOwnerId(userId, PageRequest.of(0, 10))).thenReturn(items);
+        when(commentRepository.findLatestIds(List.of(1, 2), 10)).thenReturn(List.of(3, 2, 1));
+        when(commentRepository.findAllByIdInOrderByIdDesc(List.of(3, 2, 1))).thenReturn(List.of(third, second, first));
+
+        List<ItemBookDto> foundItems = itemService.getItemsForUser(requestItem);
+
+        assertEquals(CommentMapper.toCommentDto(List.of(first)), foundItems.get(0).getComments());
+        assertEquals(CommentMapper.toCommentDto(List.of(third, second)), foundItems.get(1).getComments());
     }
-}
\ No newline at end of file
+
+}
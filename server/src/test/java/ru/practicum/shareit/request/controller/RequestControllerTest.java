@@ -14,6 +14,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.item.exception.NotFoundItemException;
 import ru.practicum.shareit.request.RequestController;
 import ru.practicum.shareit.request.dto.RequestDto;
+import ru.practicum.shareit.request.model.RequestCursor;
 import ru.practicum.shareit.request.exception.NotFoundRequestException;
 import ru.practicum.shareit.request.service.RequestService;
 import ru.practicum.shareit.user.exception.NotFoundUserException;
@@ -26,8 +27,10 @@ import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.practicum.shareit.constant.Constant.HEADER_NEXT_CURSOR;
 import static ru.practicum.shareit.constant.Constant.HEADER_USER;
 
 @WebMvcTest(controllers = RequestController.class)
@@ -154,6 +157,32 @@ public class RequestControllerTest {
                 .andExpect(jsonPath("$.length()", is(0)));
     }
 
+    @Test
+    @SneakyThrows
+    public void getItemRequestsPageableWhenCursorModePageIsFullReturnNextCursor() {
+        when(requestService.getRequests(any())).thenReturn(List.of(requestDto));
+
+        mvc.perform(get(URL + "/all")
+                        .queryParam("cursor", "")
+                        .queryParam("size", "1")
+                        .header(HEADER_USER, userId))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HEADER_NEXT_CURSOR,
+                        new RequestCursor(requestDto.getCreated(), requestDto.getId()).encode()));
+    }
+
+    @Test
+    @SneakyThrows
+    public void getItemRequestsPageableWhenOffsetModeReturnNoCursor() {
+        when(requestService.getRequests(any())).thenReturn(List.of(requestDto));
+
+        mvc.perform(get(URL + "/all")
+                        .queryParam("size", "1")
+                        .header(HEADER_USER, userId))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HEADER_NEXT_CURSOR));
+    }
+
     @Test
     @SneakyThrows
     public void getItemRequestByIdWhenInvokedMethodReturnRequest() {
@@ -6,8 +6,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.jdbc.Sql;
+import ru.practicum.shareit.request.model.Request;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
 @Sql(value = {"/set-up-before.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
@@ -17,6 +24,9 @@ public class RequestRepositoryIntegrationTest {
     @Autowired
     private RequestRepository requestRepository;
 
+    @Autowired
+    private EntityManager entityManager;
+
     private int userId;
     private int userWithoutRequests;
 
@@ -38,11 +48,46 @@ public class RequestRepositoryIntegrationTest {
 
     @Test
     public void findAllByUserUserIdNotLikeWhenInvokedMethodReturnEmptyList() {
-        assertEquals(0, requestRepository.findAllByRequestorIdNotLike(userId, PageRequest.of(0, 10)).size());
+        assertEquals(0, requestRepository.findAllByRequestorIdNotOrderByTimeOfCreationDescIdDesc(userId, PageRequest.of(0, 10)).size());
     }
 
     @Test
     public void findAllByUserUserIdNotLikeWhenInvokedMethodReturnListWithThreeRequests() {
-        assertEquals(3, requestRepository.findAllByRequestorIdNotLike(userWithoutRequests, PageRequest.of(0, 10)).size());
+        assertEquals(3, requestRepository.findAllByRequestorIdNotOrderByTimeOfCreationDescIdDesc(userWithoutRequests, PageRequest.of(0, 10)).size());
+    }
+
+    @Test
+    public void findAllByRequestorIdNotWhenInvokedMethodReturnNewestFirst() {
+        List<Request> requests = requestRepository.findAllByRequestorIdNotOrderByTimeOfCreationDescIdDesc(
+                userWithoutRequests, PageRequest.of(0, 10));
+
+        assertEquals(List.of(3, 2, 1), requests.stream().map(Request::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void findAllByRequestorIdNotBeforeWhenCursorGivenReturnRequestsAfterCursor() {
+        List<Request> requests = requestRepository.findAllByRequestorIdNotBefore(userWithoutRequests,
+                LocalDateTime.of(2023, 7, 12, 10, 20, 20), 3, PageRequest.of(0, 10));
+
+        assertEquals(List.of(2, 1), requests.stream().map(Request::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void findAllByRequestorIdNotBeforeWhenCreatedEqualCompareById() {
+        List<Request> requests = requestRepository.findAllByRequestorIdNotBefore(userWithoutRequests,
+                LocalDateTime.of(2023, 7, 11, 10, 20, 20), 5, PageRequest.of(0, 1));
+
+        assertEquals(List.of(2), requests.stream().map(Request::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void findAllByRequestorIdNotBeforeWhenPlannedUseCreatedIdIndex() {
+        String plan = (String) entityManager.createNativeQuery("explain select r.id from requests r " +
+                        "where r.requestor_id <> 1 and (r.time_of_creation < timestamp '2023-07-12 10:20:20' " +
+                        "or (r.time_of_creation = timestamp '2023-07-12 10:20:20' and r.id < 3)) " +
+                        "order by r.time_of_creation desc, r.id desc limit 10")
+                .getSingleResult();
+
+        assertTrue(plan.toLowerCase().contains("idx_requests_created_id"), plan);
     }
 }
@@ -9,12 +9,15 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageRequest;
-import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.exception.NotValidationException;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.dto.RequestDto;
+import ru.practicum.shareit.request.dto.ResponseDto;
 import ru.practicum.shareit.request.exception.NotFoundRequestException;
 import ru.practicum.shareit.request.mapper.RequestMapper;
 import ru.practicum.shareit.request.model.GetRequest;
 import ru.practicum.shareit.request.model.Request;
+import ru.practicum.shareit.request.model.RequestCursor;
 import ru.practicum.shareit.request.repository.RequestRepository;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.exception.NotFoundUserException;
@@ -23,10 +26,13 @@ import ru.practicum.shareit.user.repository.UserRepository;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -50,7 +56,7 @@ public class RequestServiceTest {
     int itemId;
     int ownerItemId;
     User user;
-    Item item;
+    ResponseDto response;
     Request request;
     User author;
 
@@ -73,14 +79,7 @@ public class RequestServiceTest {
                 .email("google@google.com")
                 .build();
 
-        item = Item.builder()
-                .id(itemId)
-                .owner(user)
-                .available(true)
-                .name("Отвертка")
-                .description("Крутая отвертка")
-                .requestId(1)
-                .build();
+        response = new ResponseDto(itemId, "Отвертка", "Крутая отвертка", requestId, true);
 
         request = Request.builder()
                 .id(requestId)
@@ -111,7 +110,7 @@ public class RequestServiceTest {
 
         when(userRepository.findById(authorId)).thenReturn(Optional.of(author));
         when(requestRepository.findAllByRequestorId(authorId)).thenReturn(itemRequests);
-        when(itemRepository.findAllByRequests(any())).thenReturn(List.of(item));
+        when(itemRepository.findResponsesByRequests(any())).thenReturn(List.of(response));
 
         assertEquals(RequestMapper.toRequestDtoList(itemRequests), requestService.getRequestsForUser(authorId));
     }
@@ -129,7 +128,6 @@ public class RequestServiceTest {
 
         when(userRepository.findById(authorId)).thenReturn(Optional.of(author));
         when(requestRepository.findAllByRequestorId(authorId)).thenReturn(itemRequests);
-        when(itemRepository.findAllByRequests(any())).thenReturn(List.of(item));
 
         assertEquals(0, requestService.getRequestsForUser(authorId).size());
     }
@@ -138,7 +136,7 @@ public class RequestServiceTest {
     public void getItemRequestByIdWhenInvokedMethodReturnBooking() {
         when(userRepository.findById(authorId)).thenReturn(Optional.of(author));
         when(requestRepository.findById(requestId)).thenReturn(Optional.of(request));
-        when(itemRepository.findAllByRequestId(any())).thenReturn(List.of(item));
+        when(itemRepository.findResponsesByRequestId(requestId)).thenReturn(List.of(response));
 
         assertEquals(RequestMapper.toRequestDto(request), requestService.getRequestById(requestId, authorId));
     }
@@ -179,8 +177,8 @@ public class RequestServiceTest {
         List<Request> itemRequests = List.of(request);
 
         when(userRepository.findById(ownerItemId)).thenReturn(Optional.of(user));
-        when(requestRepository.findAllByRequestorIdNotLike(ownerItemId, PageRequest.of(0, 10))).thenReturn(itemRequests);
-        when(itemRepository.findAllByRequests(any())).thenReturn(List.of(item));
+        when(requestRepository.findAllByRequestorIdNotOrderByTimeOfCreationDescIdDesc(ownerItemId, PageRequest.of(0, 10))).thenReturn(itemRequests);
+        when(itemRepository.findResponsesByRequests(any())).thenReturn(List.of(response));
 
         assertEquals(RequestMapper.toRequestDtoList(itemRequests), requestService.getRequests(GetRequest.of(ownerItemId, 0, 10)));
     }
@@ -190,9 +188,73 @@ public class RequestServiceTest {
         List<Request> itemRequests = List.of();
 
         when(userRepository.findById(ownerItemId)).thenReturn(Optional.of(user));
-        when(requestRepository.findAllByRequestorIdNotLike(ownerItemId, PageRequest.of(0, 10))).thenReturn(itemRequests);
-        when(itemRepository.findAllByRequests(any())).thenReturn(List.of(item));
+        when(requestRepository.findAllByRequestorIdNotOrderByTimeOfCreationDescIdDesc(ownerItemId, PageRequest.of(0, 10))).thenReturn(itemRequests);
 
         assertEquals(RequestMapper.toRequestDtoList(itemRequests), requestService.getRequests(GetRequest.of(ownerItemId, 0, 10)));
     }
+
+    @Test
+    public void getItemRequestsWhenItemsAnswerDifferentRequestsAttachEachItemToItsRequest() {
+        Request otherRequest = Request.builder()
+                .id(2)
+                .timeOfCreation(LocalDateTime.now().minusDays(1))
+                .requestor(author)
+                .description("пила")
+                .build();
+        ResponseDto saw = new ResponseDto(2, "Пила", null, 2, true);
+        ResponseDto axe = new ResponseDto(3, "Топор", null, 2, true);
+
+        when(userRepository.findById(ownerItemId)).thenReturn(Optional.of(user));
+        when(requestRepository.findAllByRequestorIdNotOrderByTimeOfCreationDescIdDesc(ownerItemId, PageRequest.of(0, 10)))
+                .thenReturn(List.of(request, otherRequest));
+        when(itemRepository.findResponsesByRequests(List.of(requestId, 2))).thenReturn(List.of(saw, response, axe));
+
+        List<RequestDto> requests = requestService.getRequests(GetRequest.of(ownerItemId, 0, 10));
+
+        assertEquals(List.of(itemId), requests.get(0).getItems().stream().map(ResponseDto::getId).collect(Collectors.toList()));
+        assertEquals(List.of(2, 3), requests.get(1).getItems().stream().map(ResponseDto::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void getItemRequestsWhenFromIsOffsetRequestPageContainingIt() {
+        when(userRepository.findById(ownerItemId)).thenReturn(Optional.of(user));
+        when(requestRepository.findAllByRequestorIdNotOrderByTimeOfCreationDescIdDesc(ownerItemId, PageRequest.of(2, 10)))
+                .thenReturn(List.of(request));
+        when(itemRepository.findResponsesByRequests(any())).thenReturn(List.of());
+
+        assertEquals(1, requestService.getRequests(GetRequest.of(ownerItemId, 20, 10)).size());
+    }
+
+    @Test
+    public void getItemRequestsWhenCursorGivenUseKeysetQuery() {
+        LocalDateTime created = LocalDateTime.of(2023, 7, 12, 10, 20, 20);
+        String cursor = new RequestCursor(created, 3).encode();
+
+        when(userRepository.findById(ownerItemId)).thenReturn(Optional.of(user));
+        when(requestRepository.findAllByRequestorIdNotBefore(ownerItemId, created, 3, PageRequest.of(0, 10)))
+                .thenReturn(List.of(request));
+        when(itemRepository.findResponsesByRequests(any())).thenReturn(List.of(response));
+
+        assertEquals(RequestMapper.toRequestDtoList(List.of(request)),
+                requestService.getRequests(GetRequest.of(ownerItemId, 0, 10, cursor)));
+    }
+
+    @Test
+    public void getItemRequestsWhenCursorIsBlankIgnoreFromAndReturnFirstPage() {
+        when(userRepository.findById(ownerItemId)).thenReturn(Optional.of(user));
+        when(requestRepository.findAllByRequestorIdNotOrderByTimeOfCreationDescIdDesc(ownerItemId, PageRequest.of(0, 10)))
+                .thenReturn(List.of(request));
+        when(itemRepository.findResponsesByRequests(any())).thenReturn(List.of(response));
+
+        assertEquals(1, requestService.getRequests(GetRequest.of(ownerItemId, 20, 10, "")).size());
+        verify(requestRepository, never()).findAllByRequestorIdNotBefore(any(), any(), any(), any());
+    }
+
+    @Test
+    public void getItemRequestsWhenCursorIsBrokenThrowNotValidationException() {
+        when(userRepository.findById(ownerItemId)).thenReturn(Optional.of(user));
+
+        assertThrows(NotValidationException.class,
+                () -> requestService.getRequests(GetRequest.of(ownerItemId, 0, 10, "не курсор")));
+    }
 }
@@ -0,0 +1,34 @@
+package ru.practicum.shareit.util;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Счетчик SQL-запросов, подготовленных Hibernate. Обнуляется перед проверяемым вызовом,
+ * после него сравнивает число запросов с допустимым бюджетом.
+ */
+public class QueryCounter {
+    private final Statistics statistics;
+
+    public QueryCounter(EntityManagerFactory entityManagerFactory) {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    public void reset() {
+        statistics.clear();
+    }
+
+    public long count() {
+        return statistics.getPrepareStatementCount();
+    }
+
+    public void assertAtMost(long budget, String operation) {
+        long count = count();
+        assertTrue(count <= budget, String.format("%s: выполнено запросов %d, бюджет %d", operation, count, budget));
+    }
+}